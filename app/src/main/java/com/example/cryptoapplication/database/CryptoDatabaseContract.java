@@ -20,6 +20,7 @@ public final class CryptoDatabaseContract {
         public static final String COLUMN_USERNAME = "username";
         public static final String COLUMN_PASSWORD_HASH = "password_hash";
         public static final String COLUMN_BALANCE = "balance";
+        public static final String COLUMN_BALANCE_UNITS = "balance_units"; // fixed-point micro-cents
         public static final String COLUMN_CREATED_AT = "created_at";
         public static final String COLUMN_LAST_LOGIN = "last_login";
         public static final String COLUMN_IS_ACTIVE = "is_active";
@@ -85,12 +86,13 @@ public final class CryptoDatabaseContract {
     // Removed unused CoinPriceHistoryEntry and AlertEntry classes
 
     /**
-     * Transactions table - unified log for BUY and WITHDRAW actions
+     * Transactions table - trade ledger for BUY and SELL actions
      */
     public static class TransactionEntry implements BaseColumns {
         public static final String TABLE_NAME = "transactions";
+        public static final String INDEX_USER_TIMESTAMP = "idx_transactions_user_timestamp";
         public static final String COLUMN_USER_ID = "user_id";
-        public static final String COLUMN_TYPE = "type"; // BUY, WITHDRAW
+        public static final String COLUMN_TYPE = "type"; // BUY, SELL
         public static final String COLUMN_COIN_ID = "coin_id"; // nullable for withdraw
         public static final String COLUMN_QUANTITY = "quantity"; // nullable for withdraw
         public static final String COLUMN_PRICE_PER_COIN = "price_per_coin"; // nullable for withdraw
@@ -98,6 +100,34 @@ public final class CryptoDatabaseContract {
         public static final String COLUMN_TIMESTAMP = "timestamp";
     }
     
+    /**
+     * Holdings table - current quantity per user and coin, updated by each trade
+     */
+    public static class HoldingsEntry {
+        public static final String TABLE_NAME = "holdings";
+        public static final String COLUMN_USER_ID = "user_id";
+        public static final String COLUMN_COIN_ID = "coin_id";
+        public static final String COLUMN_QUANTITY = "quantity"; // fixed-point quantity units
+        public static final String COLUMN_COST_BASIS = "cost_basis"; // fixed-point fiat units, average cost
+        public static final String COLUMN_TX_COUNT = "tx_count";
+        public static final String COLUMN_UPDATED_AT = "updated_at";
+    }
+    
+    /**
+     * Full-text index over coin_cache, one document per cached coin (docid = coin_cache._id).
+     * Kept in sync by triggers on coin_cache, so DAOs never write to it directly.
+     */
+    public static class CoinSearchEntry {
+        public static final String TABLE_NAME = "coin_search";
+        public static final String COLUMN_COIN_ID = CoinCacheEntry.COLUMN_COIN_ID;
+        public static final String COLUMN_SYMBOL = CoinCacheEntry.COLUMN_SYMBOL;
+        public static final String COLUMN_NAME = CoinCacheEntry.COLUMN_NAME;
+        public static final String TRIGGER_AFTER_INSERT = "coin_search_ai";
+        public static final String TRIGGER_BEFORE_UPDATE = "coin_search_bu";
+        public static final String TRIGGER_AFTER_UPDATE = "coin_search_au";
+        public static final String TRIGGER_BEFORE_DELETE = "coin_search_bd";
+    }
+
     // Aliases used by DAOs without the *Entry suffix
     public static class CoinCache {
         public static final String TABLE_NAME = CoinCacheEntry.TABLE_NAME;
@@ -140,6 +170,7 @@ public final class CryptoDatabaseContract {
         // Map DAO's COLUMN_PASSWORD to actual schema column name
         public static final String COLUMN_PASSWORD = UserEntry.COLUMN_PASSWORD_HASH;
         public static final String COLUMN_BALANCE = UserEntry.COLUMN_BALANCE;
+        public static final String COLUMN_BALANCE_UNITS = UserEntry.COLUMN_BALANCE_UNITS;
         public static final String COLUMN_PROFILE_IMAGE = UserEntry.COLUMN_PROFILE_IMAGE;
         public static final String COLUMN_CREATED_AT = UserEntry.COLUMN_CREATED_AT;
         public static final String COLUMN_LAST_LOGIN = UserEntry.COLUMN_LAST_LOGIN;
@@ -1,18 +1,26 @@
 package com.example.cryptoapplication.database;
 
 import android.content.Context;
+import android.os.Build;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 /**
  * Database helper class for managing the crypto application database.
  * Handles database creation, upgrades, and provides access to the database.
+ * A single process-wide instance is shared by every DAO so that all reads and
+ * writes go through one connection pool (see {@link #getInstance(Context)}).
  */
 public class CryptoDatabaseHelper extends SQLiteOpenHelper {
     
     // Database information
     private static final String DATABASE_NAME = "crypto_database.db";
     private static final int DATABASE_VERSION = DatabaseMigration.getLatestVersion();
+
+    // Idle reader connections in the WAL pool are closed after this long
+    public static final long IDLE_CONNECTION_TIMEOUT_MS = 30_000L;
+
+    private static CryptoDatabaseHelper instance;
     
     // SQL statements for creating tables
     private static final String SQL_CREATE_USERS_TABLE =
@@ -22,6 +30,7 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
             CryptoDatabaseContract.UserEntry.COLUMN_USERNAME + " TEXT NOT NULL, " +
             CryptoDatabaseContract.UserEntry.COLUMN_PASSWORD_HASH + " TEXT NOT NULL, " +
             CryptoDatabaseContract.UserEntry.COLUMN_BALANCE + " REAL DEFAULT 0, " +
+            CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS + " INTEGER NOT NULL DEFAULT 0, " +
             CryptoDatabaseContract.UserEntry.COLUMN_CREATED_AT + " INTEGER NOT NULL, " +
             CryptoDatabaseContract.UserEntry.COLUMN_LAST_LOGIN + " INTEGER, " +
             // Ensure columns added by migrations exist on fresh installs
@@ -98,7 +107,7 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
             "UNIQUE(" + CryptoDatabaseContract.PortfolioEntry.COLUMN_USER_ID + ", " +
             CryptoDatabaseContract.PortfolioEntry.COLUMN_COIN_ID + "));";
 
-    private static final String SQL_CREATE_TRANSACTIONS_TABLE =
+    static final String SQL_CREATE_TRANSACTIONS_TABLE =
             "CREATE TABLE IF NOT EXISTS " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME + " (" +
             CryptoDatabaseContract.TransactionEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
             CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + " INTEGER NOT NULL, " +
@@ -111,7 +120,81 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
             "FOREIGN KEY(" + CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + ") REFERENCES " +
             CryptoDatabaseContract.UserEntry.TABLE_NAME + "(" + CryptoDatabaseContract.UserEntry._ID + ") ON DELETE CASCADE" +
             ");";
-    
+
+    static final String SQL_CREATE_HOLDINGS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + " (" +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + " INTEGER NOT NULL, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + " TEXT NOT NULL, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + " INTEGER NOT NULL DEFAULT 0, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS + " INTEGER NOT NULL DEFAULT 0, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_UPDATED_AT + " INTEGER, " +
+            "PRIMARY KEY(" + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + "), " +
+            "FOREIGN KEY(" + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + ") REFERENCES " +
+            CryptoDatabaseContract.UserEntry.TABLE_NAME + "(" + CryptoDatabaseContract.UserEntry._ID + ") ON DELETE CASCADE" +
+            ");";
+
+    // History queries filter by user and order by time, so both live in one index
+    static final String SQL_CREATE_TRANSACTIONS_USER_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + CryptoDatabaseContract.TransactionEntry.INDEX_USER_TIMESTAMP +
+            " ON " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME + " (" +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP + ");";
+
+    // External-content FTS4 (FTS5 is not in every platform SQLite): the index stores only
+    // tokens and reads column values back from coin_cache, whose _id is the docid
+    static final String SQL_CREATE_COIN_SEARCH_TABLE =
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME +
+            " USING fts4(content=\"" + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + "\", " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_COIN_ID + ", " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_SYMBOL + ", " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_NAME + ");";
+
+    private static final String COIN_SEARCH_INSERT_NEW =
+            "INSERT INTO " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + "(docid, " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_COIN_ID + ", " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_SYMBOL + ", " +
+            CryptoDatabaseContract.CoinSearchEntry.COLUMN_NAME + ") VALUES (new." +
+            CryptoDatabaseContract.CoinCacheEntry._ID + ", new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + ", new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_SYMBOL + ", new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME + "); ";
+
+    // External content must be removed from the index while coin_cache still holds the old values
+    private static final String COIN_SEARCH_DELETE_OLD =
+            "DELETE FROM " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME +
+            " WHERE docid = old." + CryptoDatabaseContract.CoinCacheEntry._ID + "; ";
+
+    // Price refreshes rewrite every column through the upsert, so only re-index real text changes
+    private static final String COIN_SEARCH_TEXT_CHANGED =
+            " WHEN old." + CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + " IS NOT new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID +
+            " OR old." + CryptoDatabaseContract.CoinCacheEntry.COLUMN_SYMBOL + " IS NOT new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_SYMBOL +
+            " OR old." + CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME + " IS NOT new." +
+            CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME;
+
+    static final String[] SQL_CREATE_COIN_SEARCH_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TRIGGER_AFTER_INSERT +
+            " AFTER INSERT ON " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME +
+            " BEGIN " + COIN_SEARCH_INSERT_NEW + "END;",
+            "CREATE TRIGGER IF NOT EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TRIGGER_BEFORE_UPDATE +
+            " BEFORE UPDATE ON " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + COIN_SEARCH_TEXT_CHANGED +
+            " BEGIN " + COIN_SEARCH_DELETE_OLD + "END;",
+            "CREATE TRIGGER IF NOT EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TRIGGER_AFTER_UPDATE +
+            " AFTER UPDATE ON " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + COIN_SEARCH_TEXT_CHANGED +
+            " BEGIN " + COIN_SEARCH_INSERT_NEW + "END;",
+            "CREATE TRIGGER IF NOT EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TRIGGER_BEFORE_DELETE +
+            " BEFORE DELETE ON " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME +
+            " BEGIN " + COIN_SEARCH_DELETE_OLD + "END;"
+    };
+
+    // Re-indexes every cached coin from the content table
+    static final String SQL_REBUILD_COIN_SEARCH =
+            "INSERT INTO " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + "(" +
+            CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + ") VALUES ('rebuild');";
+
     // SQL statements for dropping tables
     private static final String SQL_DELETE_USERS_TABLE =
             "DROP TABLE IF EXISTS " + CryptoDatabaseContract.UserEntry.TABLE_NAME;
@@ -127,9 +210,45 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String SQL_DELETE_TRANSACTIONS_TABLE =
             "DROP TABLE IF EXISTS " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME;
+
+    private static final String SQL_DELETE_HOLDINGS_TABLE =
+            "DROP TABLE IF EXISTS " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME;
+
+    private static final String SQL_DELETE_COIN_SEARCH_TABLE =
+            "DROP TABLE IF EXISTS " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME;
     
-    public CryptoDatabaseHelper(Context context) {
+    private CryptoDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // WAL lets readers run on pooled secondary connections while the single
+        // primary connection serializes writes, so cache refreshes no longer
+        // block portfolio reads (and vice versa).
+        setWriteAheadLoggingEnabled(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            setIdleConnectionTimeout(IDLE_CONNECTION_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Get the process-wide database helper
+     * @param context Any context; the application context is retained
+     * @return The shared helper instance
+     */
+    public static synchronized CryptoDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new CryptoDatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Close the shared helper; the next {@link #getInstance(Context)} opens the database again.
+     * Meant for tests, which get a fresh application context each run.
+     */
+    public static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
     }
     
     @Override
@@ -138,8 +257,14 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(SQL_CREATE_USERS_TABLE);
         db.execSQL(SQL_CREATE_FAVORITE_COINS_TABLE);
         db.execSQL(SQL_CREATE_COIN_CACHE_TABLE);
+        db.execSQL(SQL_CREATE_COIN_SEARCH_TABLE);
+        for (String trigger : SQL_CREATE_COIN_SEARCH_TRIGGERS) {
+            db.execSQL(trigger);
+        }
         db.execSQL(SQL_CREATE_PORTFOLIO_TABLE);
         db.execSQL(SQL_CREATE_TRANSACTIONS_TABLE);
+        db.execSQL(SQL_CREATE_TRANSACTIONS_USER_INDEX);
+        db.execSQL(SQL_CREATE_HOLDINGS_TABLE);
         // Removed creation of unused tables (search_history, alerts, coin_price_history)
         
         // Enable foreign key constraints
@@ -164,8 +289,11 @@ public class CryptoDatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(SQL_DELETE_FAVORITE_COINS_TABLE);
         db.execSQL(SQL_DELETE_PORTFOLIO_TABLE);
         db.execSQL(SQL_DELETE_TRANSACTIONS_TABLE);
+        db.execSQL(SQL_DELETE_HOLDINGS_TABLE);
         db.execSQL(SQL_DELETE_USERS_TABLE);
+        // Dropping coin_cache also drops the triggers that feed the search index
         db.execSQL(SQL_DELETE_COIN_CACHE_TABLE);
+        db.execSQL(SQL_DELETE_COIN_SEARCH_TABLE);
         // Removed references to unused tables
     }
     
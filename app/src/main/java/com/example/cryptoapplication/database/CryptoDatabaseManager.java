@@ -23,6 +23,7 @@ public class CryptoDatabaseManager {
     private final UserDao userDao;
     private final CoinDao coinDao;
     private final PortfolioDao portfolioDao;
+    private final TradeExecutor tradeExecutor;
     
     /**
      * Private constructor for singleton pattern
@@ -30,12 +31,13 @@ public class CryptoDatabaseManager {
      */
     private CryptoDatabaseManager(Context context) {
         this.context = context.getApplicationContext();
-        this.dbHelper = new CryptoDatabaseHelper(this.context);
+        this.dbHelper = CryptoDatabaseHelper.getInstance(this.context);
         
-        // Initialize DAOs
-        this.userDao = new UserDaoImpl(this.context);
-        this.coinDao = new CoinDaoImpl(this.context);
-        this.portfolioDao = new PortfolioDaoImpl(this.context);
+        // Initialize DAOs on the shared helper so they all use one connection pool
+        this.userDao = new UserDaoImpl(dbHelper);
+        this.coinDao = new CoinDaoImpl(dbHelper);
+        this.portfolioDao = new PortfolioDaoImpl(dbHelper);
+        this.tradeExecutor = new TradeExecutor(dbHelper);
     }
     
     /**
@@ -50,6 +52,14 @@ public class CryptoDatabaseManager {
         return instance;
     }
     
+    /**
+     * Forget the singleton and close the shared helper. Meant for tests.
+     */
+    static synchronized void closeInstance() {
+        instance = null;
+        CryptoDatabaseHelper.closeInstance();
+    }
+    
     /**
      * Get the User DAO
      * @return UserDao instance
@@ -74,6 +84,22 @@ public class CryptoDatabaseManager {
         return portfolioDao;
     }
     
+    /**
+     * Get the trade executor
+     * @return TradeExecutor instance that applies balance, holding and ledger changes atomically
+     */
+    public TradeExecutor getTradeExecutor() {
+        return tradeExecutor;
+    }
+    
+    /**
+     * Get the shared database helper
+     * @return The process-wide CryptoDatabaseHelper
+     */
+    public CryptoDatabaseHelper getDatabaseHelper() {
+        return dbHelper;
+    }
+    
     /**
      * Close the database connection
      */
@@ -82,10 +108,11 @@ public class CryptoDatabaseManager {
     }
     
     /**
-     * Begin a database transaction
+     * Begin a database transaction.
+     * Uses IMMEDIATE mode so WAL readers keep running while the write is in progress.
      */
     public void beginTransaction() {
-        dbHelper.getWritableDatabase().beginTransaction();
+        dbHelper.getWritableDatabase().beginTransactionNonExclusive();
     }
     
     /**
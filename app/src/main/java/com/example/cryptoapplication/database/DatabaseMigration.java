@@ -4,6 +4,8 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.Cursor;
 import android.util.Log;
 
+import com.example.cryptoapplication.utils.FixedPoint;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -116,33 +118,6 @@ public class DatabaseMigration {
             addColumnIfMissing(db, CryptoDatabaseContract.PortfolioEntry.TABLE_NAME, CryptoDatabaseContract.PortfolioEntry.COLUMN_UPDATED_AT, "INTEGER");
         }
 
-        private void addColumnIfMissing(SQLiteDatabase db, String tableName, String columnName, String columnType) {
-            try {
-                if (!columnExists(db, tableName, columnName)) {
-                    db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + columnType);
-                }
-            } catch (Exception e) {
-                Log.w(TAG, "Skipping add column " + columnName + " on table " + tableName + ": " + e.getMessage());
-            }
-        }
-
-        private boolean columnExists(SQLiteDatabase db, String tableName, String columnName) {
-            Cursor cursor = null;
-            try {
-                cursor = db.rawQuery("PRAGMA table_info(" + tableName + ")", null);
-                int nameIndex = cursor.getColumnIndex("name");
-                while (cursor.moveToNext()) {
-                    String existing = cursor.getString(nameIndex);
-                    if (columnName.equalsIgnoreCase(existing)) {
-                        return true;
-                    }
-                }
-                return false;
-            } finally {
-                if (cursor != null) cursor.close();
-            }
-        }
-
         @Override
         public int getTargetVersion() {
             return 6;
@@ -170,6 +145,144 @@ public class DatabaseMigration {
         }
     }
     
+    /**
+     * Migration from version 7 to 8: Trade ledger moves into the transactions table
+     */
+    public static class Migration7To8 implements Migration {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            Log.i(TAG, "Migrating database from version 7 to 8");
+            // Older installs never created the transactions table through a migration
+            db.execSQL(CryptoDatabaseHelper.SQL_CREATE_TRANSACTIONS_TABLE);
+            db.execSQL(CryptoDatabaseHelper.SQL_CREATE_TRANSACTIONS_USER_INDEX);
+        }
+
+        @Override
+        public int getTargetVersion() {
+            return 8;
+        }
+    }
+    
+    /**
+     * Migration from version 8 to 9: Fixed-point balance column and holdings table,
+     * so a trade's balance, holding and ledger writes share one transaction
+     */
+    public static class Migration8To9 implements Migration {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            Log.i(TAG, "Migrating database from version 8 to 9");
+            db.execSQL("ALTER TABLE " + CryptoDatabaseContract.UserEntry.TABLE_NAME +
+                    " ADD COLUMN " + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS + " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE " + CryptoDatabaseContract.UserEntry.TABLE_NAME +
+                    " SET " + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS +
+                    " = CAST(ROUND(IFNULL(" + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE + ", 0) * " +
+                    FixedPoint.FIAT_SCALE + ") AS INTEGER)");
+            db.execSQL(CryptoDatabaseHelper.SQL_CREATE_HOLDINGS_TABLE);
+        }
+
+        @Override
+        public int getTargetVersion() {
+            return 9;
+        }
+    }
+    
+    /**
+     * Migration from version 9 to 10
+     * Adds cost basis and trade count to holdings, backfilled from the ledger
+     */
+    public static class Migration9To10 implements Migration {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            Log.i(TAG, "Migrating database from version 9 to 10");
+            // Tables created at version 9 by onCreate already have the new columns
+            addColumnIfMissing(db, CryptoDatabaseContract.HoldingsEntry.TABLE_NAME,
+                    CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS, "INTEGER NOT NULL DEFAULT 0");
+            addColumnIfMissing(db, CryptoDatabaseContract.HoldingsEntry.TABLE_NAME,
+                    CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT, "INTEGER NOT NULL DEFAULT 0");
+            db.execSQL(HOLDINGS_BACKFILL_SQL);
+        }
+
+        @Override
+        public int getTargetVersion() {
+            return 10;
+        }
+    }
+    
+    /**
+     * Migration from version 10 to 11: Full-text search index over cached coins,
+     * kept in sync with coin_cache by triggers
+     */
+    public static class Migration10To11 implements Migration {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            Log.i(TAG, "Migrating database from version 10 to 11");
+            db.execSQL(CryptoDatabaseHelper.SQL_CREATE_COIN_SEARCH_TABLE);
+            for (String trigger : CryptoDatabaseHelper.SQL_CREATE_COIN_SEARCH_TRIGGERS) {
+                db.execSQL(trigger);
+            }
+            // Index the coins cached before the triggers existed
+            db.execSQL(CryptoDatabaseHelper.SQL_REBUILD_COIN_SEARCH);
+        }
+
+        @Override
+        public int getTargetVersion() {
+            return 11;
+        }
+    }
+    
+    /**
+     * Recomputes tx_count and the average-cost basis of every holding from the transactions ledger.
+     * The basis is the current quantity at the mean BUY price.
+     */
+    static final String HOLDINGS_BACKFILL_SQL =
+            "UPDATE " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + " SET " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + " = (" +
+                "SELECT COUNT(*) FROM " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME + " t" +
+                " WHERE t." + CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + " = " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + "." + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID +
+                " AND t." + CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID + " = " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + "." + CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + "), " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS + " = IFNULL((" +
+                "SELECT CAST(ROUND(" + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + "." +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + " * 1.0 / " + FixedPoint.QUANTITY_SCALE +
+                " * SUM(t." + CryptoDatabaseContract.TransactionEntry.COLUMN_FIAT_AMOUNT + ")" +
+                " / SUM(t." + CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY + ")" +
+                " * " + FixedPoint.FIAT_SCALE + ") AS INTEGER)" +
+                " FROM " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME + " t" +
+                " WHERE t." + CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + " = " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + "." + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID +
+                " AND t." + CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID + " = " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + "." + CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID +
+                " AND t." + CryptoDatabaseContract.TransactionEntry.COLUMN_TYPE + " = 'BUY'" +
+                " AND t." + CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY + " > 0), 0)";
+    
+    private static void addColumnIfMissing(SQLiteDatabase db, String tableName, String columnName, String columnType) {
+        try {
+            if (!columnExists(db, tableName, columnName)) {
+                db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + columnType);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Skipping add column " + columnName + " on table " + tableName + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean columnExists(SQLiteDatabase db, String tableName, String columnName) {
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("PRAGMA table_info(" + tableName + ")", null);
+            int nameIndex = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                String existing = cursor.getString(nameIndex);
+                if (columnName.equalsIgnoreCase(existing)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+    }
+    
     /**
      * Get all available migrations
      */
@@ -179,6 +292,10 @@ public class DatabaseMigration {
         migrations.add(new Migration2To5()); // Renamed from Migration4To5
         migrations.add(new Migration5To6());
         migrations.add(new Migration6To7());
+        migrations.add(new Migration7To8());
+        migrations.add(new Migration8To9());
+        migrations.add(new Migration9To10());
+        migrations.add(new Migration10To11());
         return migrations;
     }
     
@@ -216,6 +333,6 @@ public class DatabaseMigration {
      * Get the latest database version
      */
     public static int getLatestVersion() {
-        return 7; // Updated to reflect actual migrations
+        return 11; // Updated to reflect actual migrations
     }
 }
\ No newline at end of file
@@ -2,19 +2,23 @@ package com.example.cryptoapplication.database;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.SQLException;
 import com.example.cryptoapplication.models.CoinModel;
 import com.example.cryptoapplication.models.ConsolidatedAsset;
 import com.example.cryptoapplication.models.PortfolioItem;
 import com.example.cryptoapplication.models.User;
+import com.example.cryptoapplication.utils.FixedPoint;
 import com.example.cryptoapplication.utils.PasswordUtils;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * ULTRA-SIMPLE DATABASE SERVICE
- * Uses SharedPreferences for trading data to avoid all database lock issues
+ * Balances, holdings and the trade ledger live in SQLite and every trade commits them together
  */
 public class SimpleDatabaseService {
     
@@ -28,13 +32,23 @@ public class SimpleDatabaseService {
     private static final String USER_PREFS = "user_data";
     private static final String TRADING_PREFS = "trading_data";
     private static final String USER_ID_KEY = "current_user_id";
+    // Old SharedPreferences wallet keys, only read by the one-time migration
     private static final String BALANCE_KEY = "user_balance_";
     private static final String HOLDINGS_KEY = "holdings_";
+    private static final String BALANCE_UNITS_KEY = "balance_units_";
+    private static final String HOLDING_UNITS_KEY = "holding_units_";
+    private static final String LEGACY_TX_KEY = "tx_";
+    private static final String LEDGER_MIGRATED_KEY = "ledger_migrated_to_db";
+    private static final String WALLET_MIGRATED_KEY = "wallet_migrated_to_db";
+    // Legacy entries the database rejected are kept under this prefix rather than dropped or retried
+    private static final String REJECTED_KEY_PREFIX = "rejected_";
     
     private SimpleDatabaseService(Context context) {
         this.dbManager = CryptoDatabaseManager.getInstance(context);
         this.userPrefs = context.getSharedPreferences(USER_PREFS, Context.MODE_PRIVATE);
         this.tradingPrefs = context.getSharedPreferences(TRADING_PREFS, Context.MODE_PRIVATE);
+        migrateLegacyLedger();
+        migrateLegacyWallet();
         loadCurrentUser();
     }
     
@@ -45,6 +59,15 @@ public class SimpleDatabaseService {
         return instance;
     }
     
+    /**
+     * Forget the singleton and close the database, so the next getInstance runs the
+     * legacy migrations again. Meant for tests.
+     */
+    static void closeInstance() {
+        instance = null;
+        CryptoDatabaseManager.closeInstance();
+    }
+    
     // USER MANAGEMENT
     public boolean isUserLoggedIn() {
         return currentUser != null;
@@ -52,9 +75,8 @@ public class SimpleDatabaseService {
     
     public User getCurrentUser() {
         if (currentUser != null) {
-            // Get fresh balance from SharedPreferences
-            double balance = tradingPrefs.getFloat(BALANCE_KEY + currentUser.getId(), 0.0f);
-            currentUser.setBalance(balance);
+            // Get fresh balance from the database
+            currentUser.setBalance(FixedPoint.toFiat(dbManager.getUserDao().getBalanceUnits(currentUser.getId())));
         }
         return currentUser;
     }
@@ -64,10 +86,6 @@ public class SimpleDatabaseService {
             User user = dbManager.getUserDao().findByEmail(email);
             if (user != null && PasswordUtils.verifyPassword(password, user.getPassword())) {
                 setCurrentUser(user);
-                // Initialize balance in SharedPreferences if not exists
-                if (!tradingPrefs.contains(BALANCE_KEY + user.getId())) {
-                    tradingPrefs.edit().putFloat(BALANCE_KEY + user.getId(), (float)user.getBalance()).apply();
-                }
                 return user;
             }
         } catch (Exception e) {
@@ -90,12 +108,11 @@ public class SimpleDatabaseService {
             user.setLastLogin(System.currentTimeMillis());
             user.setBalance(0.0);
             
+            // balance_units defaults to 0 for new rows
             long id = dbManager.getUserDao().insert(user);
             if (id != -1) {
                 user.setId(id);
                 setCurrentUser(user);
-                // Initialize balance in SharedPreferences
-                tradingPrefs.edit().putFloat(BALANCE_KEY + id, 0.0f).apply();
                 return user;
             }
         } catch (Exception e) {
@@ -114,16 +131,12 @@ public class SimpleDatabaseService {
             return false;
         }
         
-        String balanceKey = BALANCE_KEY + currentUser.getId();
-        float currentBalance = tradingPrefs.getFloat(balanceKey, 0.0f);
-        float newBalance = currentBalance + (float)amount;
-        
-        boolean success = tradingPrefs.edit().putFloat(balanceKey, newBalance).commit();
-        if (success) {
-            currentUser.setBalance(newBalance);
-            System.out.println("Added $" + amount + " to balance. New balance: $" + newBalance);
+        TradeResult result = dbManager.getTradeExecutor().adjustBalance(currentUser.getId(), FixedPoint.fromFiat(amount));
+        if (result.isSuccess()) {
+            currentUser.setBalance(FixedPoint.toFiat(result.getBalanceUnits()));
+            System.out.println("Added $" + amount + " to balance. New balance: $" + currentUser.getBalance());
         }
-        return success;
+        return result.isSuccess();
     }
     
     public boolean takeMoneyFromBalance(double amount) {
@@ -131,133 +144,55 @@ public class SimpleDatabaseService {
             return false;
         }
         
-        String balanceKey = BALANCE_KEY + currentUser.getId();
-        float currentBalance = tradingPrefs.getFloat(balanceKey, 0.0f);
-        
-        if (currentBalance < amount) {
-            return false;
-        }
-        
-        float newBalance = currentBalance - (float)amount;
-        boolean success = tradingPrefs.edit().putFloat(balanceKey, newBalance).commit();
-        if (success) {
-            currentUser.setBalance(newBalance);
-            System.out.println("Took $" + amount + " from balance. New balance: $" + newBalance);
+        TradeResult result = dbManager.getTradeExecutor().adjustBalance(currentUser.getId(), -FixedPoint.fromFiat(amount));
+        if (result.isSuccess()) {
+            currentUser.setBalance(FixedPoint.toFiat(result.getBalanceUnits()));
+            System.out.println("Took $" + amount + " from balance. New balance: $" + currentUser.getBalance());
         }
-        return success;
+        return result.isSuccess();
     }
     
     // ULTRA-SIMPLE CRYPTO TRADING
     public boolean buyCryptocurrency(String coinId, double quantity, double price) {
-        lastErrorMessage = "";
         System.out.println("=== SIMPLE BUY START ===");
         System.out.println("Coin: " + coinId + ", Quantity: " + quantity + ", Price: $" + price);
         
-        if (!isUserLoggedIn()) {
-            lastErrorMessage = "Not logged in";
-            return false;
-        }
-        
-        if (quantity <= 0 || price <= 0) {
-            lastErrorMessage = "Invalid values";
-            return false;
-        }
-        
-        double totalCost = quantity * price;
-        String balanceKey = BALANCE_KEY + currentUser.getId();
-        float currentBalance = tradingPrefs.getFloat(balanceKey, 0.0f);
-        
-        System.out.println("Need: $" + totalCost + ", Have: $" + currentBalance);
-        
-        if (currentBalance < totalCost) {
-            lastErrorMessage = "Not enough money. Need $" + totalCost + ", have $" + currentBalance;
-            return false;
-        }
-        
-        try {
-            // Step 1: Subtract money from balance
-            float newBalance = currentBalance - (float)totalCost;
-            tradingPrefs.edit().putFloat(balanceKey, newBalance).apply();
-            
-            // Step 2: Add to crypto holdings
-            String holdingsKey = HOLDINGS_KEY + currentUser.getId() + "_" + coinId;
-            float currentHoldings = tradingPrefs.getFloat(holdingsKey, 0.0f);
-            float newHoldings = currentHoldings + (float)quantity;
-            tradingPrefs.edit().putFloat(holdingsKey, newHoldings).apply();
-            
-            // Step 3: Save transaction record
-            String transactionKey = "tx_" + currentUser.getId() + "_" + System.currentTimeMillis();
-            String transactionData = coinId + "|" + quantity + "|" + price + "|BUY|" + System.currentTimeMillis();
-            tradingPrefs.edit().putString(transactionKey, transactionData).apply();
-            
-            // Update current user
-            currentUser.setBalance(newBalance);
-            
-            System.out.println("BUY SUCCESS! New balance: $" + newBalance + ", Holdings: " + newHoldings);
-            return true;
-            
-        } catch (Exception e) {
-            lastErrorMessage = "Error: " + e.getMessage();
-            System.out.println("BUY ERROR: " + e.getMessage());
-            return false;
-        }
+        return executeTrades(Collections.singletonList(TradeExecutor.Trade.buy(coinId,
+                FixedPoint.fromQuantity(quantity), FixedPoint.fromFiat(price))));
     }
     
     public boolean sellCryptocurrency(String coinId, double quantity, double price) {
-        lastErrorMessage = "";
         System.out.println("=== SIMPLE SELL START ===");
         System.out.println("Coin: " + coinId + ", Quantity: " + quantity + ", Price: $" + price);
         
+        return executeTrades(Collections.singletonList(TradeExecutor.Trade.sell(coinId,
+                FixedPoint.fromQuantity(quantity), FixedPoint.fromFiat(price))));
+    }
+    
+    /**
+     * Execute several trades for the current user in one transaction.
+     * Either all of them are applied or, on the first failure, none is.
+     * @param trades Orders to apply in list order
+     * @return true if every trade was committed; otherwise see getLastErrorMessage()
+     */
+    public boolean executeTrades(List<TradeExecutor.Trade> trades) {
+        lastErrorMessage = "";
+        
         if (!isUserLoggedIn()) {
             lastErrorMessage = "Not logged in";
             return false;
         }
         
-        if (quantity <= 0 || price <= 0) {
-            lastErrorMessage = "Invalid values";
-            return false;
-        }
-        
-        // Check holdings
-        String holdingsKey = HOLDINGS_KEY + currentUser.getId() + "_" + coinId;
-        float currentHoldings = tradingPrefs.getFloat(holdingsKey, 0.0f);
-        
-        System.out.println("Want to sell: " + quantity + ", Have: " + currentHoldings);
-        
-        if (currentHoldings < quantity) {
-            lastErrorMessage = "Not enough crypto. Need " + quantity + ", have " + currentHoldings;
+        TradeResult result = dbManager.getTradeExecutor().executeAll(currentUser.getId(), trades);
+        if (!result.isSuccess()) {
+            lastErrorMessage = result.getMessage();
+            System.out.println("TRADE FAILED: " + lastErrorMessage);
             return false;
         }
         
-        try {
-            double totalEarned = quantity * price;
-            
-            // Step 1: Add money to balance
-            String balanceKey = BALANCE_KEY + currentUser.getId();
-            float currentBalance = tradingPrefs.getFloat(balanceKey, 0.0f);
-            float newBalance = currentBalance + (float)totalEarned;
-            tradingPrefs.edit().putFloat(balanceKey, newBalance).apply();
-            
-            // Step 2: Subtract from crypto holdings
-            float newHoldings = currentHoldings - (float)quantity;
-            tradingPrefs.edit().putFloat(holdingsKey, newHoldings).apply();
-            
-            // Step 3: Save transaction record
-            String transactionKey = "tx_" + currentUser.getId() + "_" + System.currentTimeMillis();
-            String transactionData = coinId + "|" + quantity + "|" + price + "|SELL|" + System.currentTimeMillis();
-            tradingPrefs.edit().putString(transactionKey, transactionData).apply();
-            
-            // Update current user
-            currentUser.setBalance(newBalance);
-            
-            System.out.println("SELL SUCCESS! New balance: $" + newBalance + ", Holdings: " + newHoldings);
-            return true;
-            
-        } catch (Exception e) {
-            lastErrorMessage = "Error: " + e.getMessage();
-            System.out.println("SELL ERROR: " + e.getMessage());
-            return false;
-        }
+        currentUser.setBalance(FixedPoint.toFiat(result.getBalanceUnits()));
+        System.out.println("TRADE SUCCESS! " + trades.size() + " trade(s), new balance: $" + currentUser.getBalance());
+        return true;
     }
     
     // SIMPLE HOLDINGS CALCULATOR
@@ -266,8 +201,12 @@ public class SimpleDatabaseService {
             return 0.0;
         }
         
-        String holdingsKey = HOLDINGS_KEY + currentUser.getId() + "_" + coinId;
-        return tradingPrefs.getFloat(holdingsKey, 0.0f);
+        try {
+            return FixedPoint.toQuantity(dbManager.getPortfolioDao().getHoldingUnits(currentUser.getId(), coinId));
+        } catch (Exception e) {
+            System.out.println("Holdings error: " + e.getMessage());
+            return 0.0;
+        }
     }
     
     // CONSOLIDATED ASSETS VIEW
@@ -279,49 +218,33 @@ public class SimpleDatabaseService {
         }
         
         try {
-            // Get all transactions
-            List<PortfolioItem> allTransactions = getUserPortfolio();
-            Map<String, ConsolidatedAsset> assetMap = new HashMap<>();
+            // One row per held coin, kept up to date by every trade
+            List<ConsolidatedAsset> holdings = dbManager.getPortfolioDao().getHoldings(currentUser.getId());
             
-            // Group transactions by coin
-            for (PortfolioItem transaction : allTransactions) {
-                String coinId = transaction.getCoinId();
-                
-                ConsolidatedAsset asset = assetMap.get(coinId);
-                if (asset == null) {
-                    // Get coin info
-                    CoinModel coin = findCoinById(coinId);
-                    String coinName = coin != null ? coin.getName() : coinId;
-                    String coinSymbol = coin != null ? coin.getSymbol() : coinId.toUpperCase();
-                    
-                    asset = new ConsolidatedAsset(coinId, coinName, coinSymbol);
-                    assetMap.put(coinId, asset);
-                }
-                
-                // Update consolidated data based on transaction type
-                if ("BUY".equals(transaction.getTransactionType())) {
-                    // Add to holdings
-                    asset.setTotalQuantity(asset.getTotalQuantity() + transaction.getQuantity());
-                } else if ("SELL".equals(transaction.getTransactionType())) {
-                    // Subtract from holdings
-                    asset.setTotalQuantity(asset.getTotalQuantity() - transaction.getQuantity());
-                }
-                
-                asset.setTransactionCount(asset.getTransactionCount() + 1);
-                asset.setCurrentPrice(transaction.getPurchasePrice()); // Use latest price as current
+            // Resolve names and prices for every held coin in one query
+            List<String> coinIds = new ArrayList<>(holdings.size());
+            for (ConsolidatedAsset asset : holdings) {
+                coinIds.add(asset.getCoinId());
             }
+            Map<String, CoinModel> coins = findCoinsByIds(coinIds);
             
-            // Calculate current values for each asset
-            for (ConsolidatedAsset asset : assetMap.values()) {
-                if (asset.getTotalQuantity() > 0) { // Only include assets with positive holdings
-                    double currentValue = asset.getTotalQuantity() * asset.getCurrentPrice();
-                    asset.setTotalValue(currentValue);
-                    consolidatedAssets.add(asset);
-                }
+            for (ConsolidatedAsset asset : holdings) {
+                String coinId = asset.getCoinId();
+                CoinModel coin = coins.get(coinId);
+                asset.setCoinName(coin != null ? coin.getName() : coinId);
+                asset.setCoinSymbol(coin != null ? coin.getSymbol() : coinId.toUpperCase());
+                
+                // Market price when cached, otherwise what the user paid on average
+                long priceUnits = coin != null && coin.getCurrentPrice() > 0
+                        ? FixedPoint.fromFiat(coin.getCurrentPrice())
+                        : FixedPoint.proportion(asset.getCostBasisUnits(), FixedPoint.QUANTITY_SCALE, asset.getTotalQuantityUnits());
+                asset.setCurrentPriceUnits(priceUnits);
+                asset.setTotalValueUnits(FixedPoint.value(asset.getTotalQuantityUnits(), priceUnits));
+                consolidatedAssets.add(asset);
             }
             
             // Sort by total value (highest first)
-            consolidatedAssets.sort((a, b) -> Double.compare(b.getTotalValue(), a.getTotalValue()));
+            consolidatedAssets.sort((a, b) -> Long.compare(b.getTotalValueUnits(), a.getTotalValueUnits()));
             
         } catch (Exception e) {
             System.out.println("Consolidated assets error: " + e.getMessage());
@@ -329,6 +252,24 @@ public class SimpleDatabaseService {
         
         return consolidatedAssets;
     }
+    
+    /**
+     * Held coins straight from the holdings table, without name or market price lookups.
+     * Cheap enough to call on every balance refresh; see PortfolioValuationService.
+     */
+    public List<ConsolidatedAsset> getHoldings() {
+        if (!isUserLoggedIn()) {
+            return new ArrayList<>();
+        }
+        
+        try {
+            return dbManager.getPortfolioDao().getHoldings(currentUser.getId());
+        } catch (Exception e) {
+            System.out.println("Holdings error: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
     public List<PortfolioItem> getUserPortfolio() {
         List<PortfolioItem> portfolio = new ArrayList<>();
         
@@ -337,32 +278,8 @@ public class SimpleDatabaseService {
         }
         
         try {
-            Map<String, ?> allPrefs = tradingPrefs.getAll();
-            String userPrefix = "tx_" + currentUser.getId() + "_";
-            
-            for (Map.Entry<String, ?> entry : allPrefs.entrySet()) {
-                String key = entry.getKey();
-                if (key.startsWith(userPrefix)) {
-                    String data = (String) entry.getValue();
-                    String[] parts = data.split("\\|");
-                    if (parts.length >= 5) {
-                        PortfolioItem item = new PortfolioItem();
-                        item.setUserId(currentUser.getId());
-                        item.setCoinId(parts[0]);
-                        item.setQuantity(Double.parseDouble(parts[1]));
-                        item.setPurchasePrice(Double.parseDouble(parts[2]));
-                        item.setTransactionType(parts[3]);
-                        item.setPurchaseDate(Long.parseLong(parts[4]));
-                        item.setCurrentPrice(Double.parseDouble(parts[2]));
-                        item.setTotalValue(item.getQuantity() * item.getPurchasePrice());
-                        portfolio.add(item);
-                    }
-                }
-            }
-            
-            // Sort by date (newest first)
-            portfolio.sort((a, b) -> Long.compare(b.getPurchaseDate(), a.getPurchaseDate()));
-            
+            // Ledger rows come back newest first from the (user_id, timestamp) index
+            portfolio.addAll(dbManager.getPortfolioDao().getTransactionHistory(currentUser.getId()));
         } catch (Exception e) {
             System.out.println("Portfolio error: " + e.getMessage());
         }
@@ -395,6 +312,14 @@ public class SimpleDatabaseService {
         }
     }
     
+    public Map<String, CoinModel> findCoinsByIds(Collection<String> coinIds) {
+        try {
+            return dbManager.getCoinDao().findByCoinIds(coinIds);
+        } catch (Exception e) {
+            return new HashMap<>();
+        }
+    }
+    
     public List<CoinModel> getTopValueCoins(int count) {
         try {
             return dbManager.getCoinDao().getTopByMarketCap(count);
@@ -421,22 +346,9 @@ public class SimpleDatabaseService {
     
     public void saveCoinsToCache(List<CoinModel> coins) {
         try {
-            dbManager.beginTransaction();
-            for (CoinModel coin : coins) {
-                CoinModel existing = dbManager.getCoinDao().findByCoinId(coin.getId());
-                if (existing != null) {
-                    dbManager.getCoinDao().update(coin);
-                } else {
-                    dbManager.getCoinDao().insert(coin);
-                }
-            }
-            dbManager.setTransactionSuccessful();
+            dbManager.getCoinDao().upsertAll(coins);
         } catch (Exception e) {
             System.out.println("Cache error: " + e.getMessage());
-        } finally {
-            try {
-                dbManager.endTransaction();
-            } catch (Exception ignored) {}
         }
     }
     
@@ -499,6 +411,178 @@ public class SimpleDatabaseService {
         }
     }
     
+    /**
+     * One-time move of the old "tx_<userId>_<ts>" = "coin|qty|price|TYPE|ts" entries
+     * into the transactions table. Keys are only removed once the whole batch is committed.
+     * A row the database rejects (e.g. its user was deleted) would be rejected on every start,
+     * so it is moved to a "rejected_" key instead of being retried or lost.
+     */
+    private void migrateLegacyLedger() {
+        if (tradingPrefs.getBoolean(LEDGER_MIGRATED_KEY, false)) {
+            return;
+        }
+        
+        SharedPreferences.Editor editor = tradingPrefs.edit();
+        int migrated = 0;
+        int rejected = 0;
+        try {
+            dbManager.beginTransaction();
+            try {
+                for (Map.Entry<String, ?> entry : tradingPrefs.getAll().entrySet()) {
+                    String key = entry.getKey();
+                    if (!key.startsWith(LEGACY_TX_KEY) || !(entry.getValue() instanceof String)) {
+                        continue;
+                    }
+                    int userEnd = key.indexOf('_', LEGACY_TX_KEY.length());
+                    String[] parts = ((String) entry.getValue()).split("\\|");
+                    if (userEnd < 0 || parts.length < 5) {
+                        editor.remove(key);
+                        continue;
+                    }
+                    try {
+                        long userId = Long.parseLong(key.substring(LEGACY_TX_KEY.length(), userEnd));
+                        long rowId = dbManager.getPortfolioDao().recordTransaction(userId, parts[0], parts[3],
+                                Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                                Long.parseLong(parts[4]));
+                        if (rowId == -1) {
+                            rejected++;
+                            setAside(editor, key, entry.getValue());
+                            continue;
+                        }
+                        editor.remove(key);
+                        migrated++;
+                    } catch (NumberFormatException e) {
+                        editor.remove(key);
+                        System.out.println("Skipping malformed ledger entry " + key);
+                    }
+                }
+                dbManager.setTransactionSuccessful();
+            } finally {
+                dbManager.endTransaction();
+            }
+            
+            editor.putBoolean(LEDGER_MIGRATED_KEY, true).commit();
+            System.out.println("Migrated " + migrated + " ledger entries to the database, " + rejected + " rejected");
+        } catch (Exception e) {
+            // Leave the prefs untouched so the migration is retried on next start
+            System.out.println("Ledger migration error: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * One-time move of the SharedPreferences wallet (balance and holdings, in both the
+     * float and fixed-point formats) into the users and holdings tables.
+     * Keys are only removed once the whole batch is committed. Like the ledger, an entry
+     * the database rejects is set aside under a "rejected_" key rather than dropped.
+     */
+    private void migrateLegacyWallet() {
+        if (tradingPrefs.getBoolean(WALLET_MIGRATED_KEY, false)) {
+            return;
+        }
+        
+        Map<String, ?> all = tradingPrefs.getAll();
+        SharedPreferences.Editor editor = tradingPrefs.edit();
+        TradeExecutor executor = dbManager.getTradeExecutor();
+        int migrated = 0;
+        int rejected = 0;
+        try {
+            dbManager.beginTransaction();
+            try {
+                for (Map.Entry<String, ?> entry : all.entrySet()) {
+                    String key = entry.getKey();
+                    String suffix;
+                    long units;
+                    boolean balance;
+                    
+                    if (key.startsWith(BALANCE_UNITS_KEY) && entry.getValue() instanceof Long) {
+                        suffix = key.substring(BALANCE_UNITS_KEY.length());
+                        units = (Long) entry.getValue();
+                        balance = true;
+                    } else if (key.startsWith(BALANCE_KEY) && entry.getValue() instanceof Float) {
+                        suffix = key.substring(BALANCE_KEY.length());
+                        // The fixed-point entry wins if both are present
+                        if (all.containsKey(BALANCE_UNITS_KEY + suffix)) {
+                            editor.remove(key);
+                            continue;
+                        }
+                        units = Math.round((double) (Float) entry.getValue() * FixedPoint.FIAT_SCALE);
+                        balance = true;
+                    } else if (key.startsWith(HOLDING_UNITS_KEY) && entry.getValue() instanceof Long) {
+                        suffix = key.substring(HOLDING_UNITS_KEY.length());
+                        units = (Long) entry.getValue();
+                        balance = false;
+                    } else if (key.startsWith(HOLDINGS_KEY) && entry.getValue() instanceof Float) {
+                        suffix = key.substring(HOLDINGS_KEY.length());
+                        if (all.containsKey(HOLDING_UNITS_KEY + suffix)) {
+                            editor.remove(key);
+                            continue;
+                        }
+                        units = Math.round((double) (Float) entry.getValue() * FixedPoint.QUANTITY_SCALE);
+                        balance = false;
+                    } else {
+                        continue;
+                    }
+                    
+                    boolean imported;
+                    try {
+                        if (balance) {
+                            imported = executor.importBalance(Long.parseLong(suffix), units);
+                        } else {
+                            // "<userId>_<coinId>"
+                            int userEnd = suffix.indexOf('_');
+                            if (userEnd < 0) {
+                                editor.remove(key);
+                                System.out.println("Skipping malformed wallet entry " + key);
+                                continue;
+                            }
+                            executor.importHolding(Long.parseLong(suffix.substring(0, userEnd)),
+                                    suffix.substring(userEnd + 1), units);
+                            imported = true;
+                        }
+                    } catch (NumberFormatException e) {
+                        editor.remove(key);
+                        System.out.println("Skipping malformed wallet entry " + key);
+                        continue;
+                    } catch (SQLException e) {
+                        // e.g. a holding whose user no longer exists
+                        imported = false;
+                    }
+                    if (imported) {
+                        editor.remove(key);
+                        migrated++;
+                    } else {
+                        rejected++;
+                        setAside(editor, key, entry.getValue());
+                    }
+                }
+                executor.rebuildHoldingStats();
+                dbManager.setTransactionSuccessful();
+            } finally {
+                dbManager.endTransaction();
+            }
+            
+            editor.putBoolean(WALLET_MIGRATED_KEY, true).commit();
+            System.out.println("Migrated " + migrated + " wallet entries to the database, " + rejected + " rejected");
+        } catch (Exception e) {
+            // Leave the prefs untouched so the migration is retried on next start
+            System.out.println("Wallet migration error: " + e.getMessage());
+        }
+    }
+    
+    // Move a legacy entry the database rejected out of the migration's way, keeping its value
+    private static void setAside(SharedPreferences.Editor editor, String key, Object value) {
+        String rejectedKey = REJECTED_KEY_PREFIX + key;
+        if (value instanceof String) {
+            editor.putString(rejectedKey, (String) value);
+        } else if (value instanceof Long) {
+            editor.putLong(rejectedKey, (Long) value);
+        } else if (value instanceof Float) {
+            editor.putFloat(rejectedKey, (Float) value);
+        }
+        editor.remove(key);
+        System.out.println("Legacy entry " + key + " was rejected, kept as " + rejectedKey);
+    }
+    
     private void setCurrentUser(User user) {
         this.currentUser = user;
         if (user != null) {
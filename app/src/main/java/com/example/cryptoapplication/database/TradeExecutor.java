@@ -0,0 +1,337 @@
+package com.example.cryptoapplication.database;
+
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executes trades as single database transactions.
+ * Each trade is validated against the stored balance and holding, then the balance,
+ * holding and ledger rows are written together, so a crash can never leave them torn.
+ */
+public class TradeExecutor {
+
+    private static final String TAG = "TradeExecutor";
+
+    public static final String TYPE_BUY = "BUY";
+    public static final String TYPE_SELL = "SELL";
+
+    private static final String SQL_SELECT_BALANCE =
+            "SELECT " + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS +
+            " FROM " + CryptoDatabaseContract.UserEntry.TABLE_NAME +
+            " WHERE " + CryptoDatabaseContract.UserEntry._ID + " = ?";
+
+    private static final String SQL_UPDATE_BALANCE =
+            "UPDATE " + CryptoDatabaseContract.UserEntry.TABLE_NAME +
+            " SET " + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS + " = ?" +
+            " WHERE " + CryptoDatabaseContract.UserEntry._ID + " = ?";
+
+    // Zero rather than no row when the user has never held the coin, so simpleQueryForLong does not throw
+    private static final String SQL_SELECT_HOLDING_QUANTITY = selectHoldingColumn(
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY);
+
+    private static final String SQL_SELECT_HOLDING_COST_BASIS = selectHoldingColumn(
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS);
+
+    // Column order is shared by the update and the insert so both bind the same way
+    private static final String SQL_UPDATE_HOLDING =
+            "UPDATE " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME +
+            " SET " + CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + " = ?, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS + " = ?, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + " = " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + " + ?, " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_UPDATED_AT + " = ?" +
+            " WHERE " + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + " = ? AND " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + " = ?";
+
+    private static final String SQL_INSERT_HOLDING =
+            "INSERT INTO " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + " (" +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_UPDATED_AT + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + ", " +
+            CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERT_LEDGER =
+            "INSERT INTO " + CryptoDatabaseContract.TransactionEntry.TABLE_NAME + " (" +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_TYPE + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_PRICE_PER_COIN + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_FIAT_AMOUNT + ", " +
+            CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final CryptoDatabaseHelper dbHelper;
+
+    public TradeExecutor(CryptoDatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * A single buy or sell order in fixed-point units
+     */
+    public static class Trade {
+        private final String coinId;
+        private final String type;
+        private final long quantityUnits;
+        private final long priceUnits;
+
+        private Trade(String coinId, String type, long quantityUnits, long priceUnits) {
+            this.coinId = coinId;
+            this.type = type;
+            this.quantityUnits = quantityUnits;
+            this.priceUnits = priceUnits;
+        }
+
+        public static Trade buy(String coinId, long quantityUnits, long priceUnits) {
+            return new Trade(coinId, TYPE_BUY, quantityUnits, priceUnits);
+        }
+
+        public static Trade sell(String coinId, long quantityUnits, long priceUnits) {
+            return new Trade(coinId, TYPE_SELL, quantityUnits, priceUnits);
+        }
+
+        public String getCoinId() { return coinId; }
+        public String getType() { return type; }
+        public long getQuantityUnits() { return quantityUnits; }
+        public long getPriceUnits() { return priceUnits; }
+        public boolean isBuy() { return TYPE_BUY.equals(type); }
+    }
+
+    /**
+     * Execute one trade in its own transaction
+     * @param userId The ID of the user
+     * @param trade The order to execute
+     * @return The result, including the new cash balance on success
+     */
+    public TradeResult execute(long userId, Trade trade) {
+        return executeAll(userId, Collections.singletonList(trade));
+    }
+
+    /**
+     * Execute several trades in one transaction. Either every trade is applied or none is.
+     * @param userId The ID of the user
+     * @param trades The orders to execute, applied in list order
+     * @return The result of the batch, including the new cash balance on success
+     */
+    public synchronized TradeResult executeAll(long userId, List<Trade> trades) {
+        if (trades == null || trades.isEmpty()) {
+            return new TradeResult(TradeResult.TradeStatus.INVALID_INPUT, 0, "No trades");
+        }
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement selectBalance = null;
+        SQLiteStatement updateBalance = null;
+        SQLiteStatement selectQuantity = null;
+        SQLiteStatement selectCostBasis = null;
+        SQLiteStatement updateHolding = null;
+        SQLiteStatement insertHolding = null;
+        SQLiteStatement insertLedger = null;
+
+        db.beginTransactionNonExclusive();
+        try {
+            selectBalance = db.compileStatement(SQL_SELECT_BALANCE);
+            updateBalance = db.compileStatement(SQL_UPDATE_BALANCE);
+            selectQuantity = db.compileStatement(SQL_SELECT_HOLDING_QUANTITY);
+            selectCostBasis = db.compileStatement(SQL_SELECT_HOLDING_COST_BASIS);
+            updateHolding = db.compileStatement(SQL_UPDATE_HOLDING);
+            insertHolding = db.compileStatement(SQL_INSERT_HOLDING);
+            insertLedger = db.compileStatement(SQL_INSERT_LEDGER);
+
+            selectBalance.bindLong(1, userId);
+            long balance = selectBalance.simpleQueryForLong();
+            long timestamp = System.currentTimeMillis();
+
+            for (Trade trade : trades) {
+                if (trade == null || trade.coinId == null || trade.quantityUnits <= 0 || trade.priceUnits <= 0) {
+                    return new TradeResult(TradeResult.TradeStatus.INVALID_INPUT, balance, "Invalid values");
+                }
+
+                long value = FixedPoint.value(trade.quantityUnits, trade.priceUnits);
+                long holding = queryHolding(selectQuantity, userId, trade.coinId);
+                long costBasis = queryHolding(selectCostBasis, userId, trade.coinId);
+
+                if (trade.isBuy()) {
+                    if (balance < value) {
+                        return new TradeResult(TradeResult.TradeStatus.INSUFFICIENT_FUNDS, balance,
+                                "Not enough money. Need $" + FixedPoint.toFiat(value)
+                                        + ", have $" + FixedPoint.toFiat(balance));
+                    }
+                    balance -= value;
+                    holding = Math.addExact(holding, trade.quantityUnits);
+                    costBasis = Math.addExact(costBasis, value);
+                } else {
+                    if (holding < trade.quantityUnits) {
+                        return new TradeResult(TradeResult.TradeStatus.INSUFFICIENT_HOLDINGS, balance,
+                                "Not enough crypto. Need " + FixedPoint.toQuantity(trade.quantityUnits)
+                                        + ", have " + FixedPoint.toQuantity(holding));
+                    }
+                    // Average cost: the sold share of the position takes the same share of its basis
+                    costBasis -= FixedPoint.proportion(costBasis, trade.quantityUnits, holding);
+                    holding -= trade.quantityUnits;
+                    balance = Math.addExact(balance, value);
+                }
+
+                writeHolding(updateHolding, insertHolding, userId, trade.coinId, holding, costBasis, 1, timestamp);
+
+                insertLedger.bindLong(1, userId);
+                insertLedger.bindString(2, trade.type);
+                insertLedger.bindString(3, trade.coinId);
+                insertLedger.bindDouble(4, FixedPoint.toQuantity(trade.quantityUnits));
+                insertLedger.bindDouble(5, FixedPoint.toFiat(trade.priceUnits));
+                insertLedger.bindDouble(6, FixedPoint.toFiat(value));
+                insertLedger.bindLong(7, timestamp);
+                insertLedger.executeInsert();
+            }
+
+            updateBalance.bindLong(1, balance);
+            updateBalance.bindLong(2, userId);
+            updateBalance.executeUpdateDelete();
+
+            db.setTransactionSuccessful();
+            return new TradeResult(TradeResult.TradeStatus.SUCCESS, balance, "");
+        } catch (SQLiteDoneException e) {
+            return new TradeResult(TradeResult.TradeStatus.FAILURE, 0, "Unknown user");
+        } catch (ArithmeticException e) {
+            return new TradeResult(TradeResult.TradeStatus.INVALID_INPUT, 0, "Invalid values");
+        } catch (SQLException e) {
+            Log.e(TAG, "Trade failed", e);
+            return new TradeResult(TradeResult.TradeStatus.FAILURE, 0, "Error: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            closeQuietly(selectBalance, updateBalance, selectQuantity, selectCostBasis,
+                    updateHolding, insertHolding, insertLedger);
+        }
+    }
+
+    /**
+     * Deposit (positive delta) or withdraw (negative delta) cash in one transaction
+     * @param userId The ID of the user
+     * @param deltaUnits Change in fixed-point units
+     * @return The result, including the new cash balance on success
+     */
+    public synchronized TradeResult adjustBalance(long userId, long deltaUnits) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement selectBalance = null;
+        SQLiteStatement updateBalance = null;
+
+        db.beginTransactionNonExclusive();
+        try {
+            selectBalance = db.compileStatement(SQL_SELECT_BALANCE);
+            updateBalance = db.compileStatement(SQL_UPDATE_BALANCE);
+
+            selectBalance.bindLong(1, userId);
+            long balance = Math.addExact(selectBalance.simpleQueryForLong(), deltaUnits);
+            if (balance < 0) {
+                return new TradeResult(TradeResult.TradeStatus.INSUFFICIENT_FUNDS, balance, "Insufficient balance");
+            }
+
+            updateBalance.bindLong(1, balance);
+            updateBalance.bindLong(2, userId);
+            updateBalance.executeUpdateDelete();
+
+            db.setTransactionSuccessful();
+            return new TradeResult(TradeResult.TradeStatus.SUCCESS, balance, "");
+        } catch (SQLiteDoneException e) {
+            return new TradeResult(TradeResult.TradeStatus.FAILURE, 0, "Unknown user");
+        } catch (ArithmeticException e) {
+            return new TradeResult(TradeResult.TradeStatus.INVALID_INPUT, 0, "Invalid values");
+        } catch (SQLException e) {
+            Log.e(TAG, "Balance update failed", e);
+            return new TradeResult(TradeResult.TradeStatus.FAILURE, 0, "Error: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            closeQuietly(selectBalance, updateBalance);
+        }
+    }
+
+    /**
+     * Overwrite a user's balance. Used when importing state from older storage;
+     * callers own the surrounding transaction.
+     * @return False if there is no such user
+     */
+    boolean importBalance(long userId, long balanceUnits) {
+        SQLiteStatement updateBalance = dbHelper.getWritableDatabase().compileStatement(SQL_UPDATE_BALANCE);
+        try {
+            updateBalance.bindLong(1, balanceUnits);
+            updateBalance.bindLong(2, userId);
+            return updateBalance.executeUpdateDelete() > 0;
+        } finally {
+            updateBalance.close();
+        }
+    }
+
+    /**
+     * Overwrite a user's holding of one coin. Used when importing state from older storage;
+     * callers own the surrounding transaction and should call {@link #rebuildHoldingStats()} afterwards.
+     * @throws SQLException If the row is rejected, e.g. the user no longer exists
+     */
+    void importHolding(long userId, String coinId, long quantityUnits) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement updateHolding = db.compileStatement(SQL_UPDATE_HOLDING);
+        SQLiteStatement insertHolding = db.compileStatement(SQL_INSERT_HOLDING);
+        try {
+            writeHolding(updateHolding, insertHolding, userId, coinId, quantityUnits, 0, 0, System.currentTimeMillis());
+        } finally {
+            closeQuietly(updateHolding, insertHolding);
+        }
+    }
+
+    /**
+     * Recompute cost basis and trade count of every holding from the ledger
+     */
+    void rebuildHoldingStats() {
+        dbHelper.getWritableDatabase().execSQL(DatabaseMigration.HOLDINGS_BACKFILL_SQL);
+    }
+
+    private static String selectHoldingColumn(String column) {
+        return "SELECT COALESCE((SELECT " + column +
+                " FROM " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME +
+                " WHERE " + CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + " = ? AND " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + " = ?), 0)";
+    }
+
+    // One column of the user's holding, zero if the user has never held this coin
+    private static long queryHolding(SQLiteStatement selectColumn, long userId, String coinId) {
+        selectColumn.bindLong(1, userId);
+        selectColumn.bindString(2, coinId);
+        return selectColumn.simpleQueryForLong();
+    }
+
+    // Update the existing row, or insert it the first time the user touches this coin
+    private static void writeHolding(SQLiteStatement updateHolding, SQLiteStatement insertHolding,
+                                     long userId, String coinId, long quantityUnits, long costBasisUnits,
+                                     int trades, long timestamp) {
+        if (bindHolding(updateHolding, userId, coinId, quantityUnits, costBasisUnits, trades, timestamp)
+                .executeUpdateDelete() == 0) {
+            bindHolding(insertHolding, userId, coinId, quantityUnits, costBasisUnits, trades, timestamp)
+                    .executeInsert();
+        }
+    }
+
+    private static SQLiteStatement bindHolding(SQLiteStatement statement, long userId, String coinId,
+                                               long quantityUnits, long costBasisUnits, int trades, long timestamp) {
+        statement.bindLong(1, quantityUnits);
+        statement.bindLong(2, costBasisUnits);
+        statement.bindLong(3, trades);
+        statement.bindLong(4, timestamp);
+        statement.bindLong(5, userId);
+        statement.bindString(6, coinId);
+        return statement;
+    }
+
+    private static void closeQuietly(SQLiteStatement... statements) {
+        for (SQLiteStatement statement : statements) {
+            if (statement != null) statement.close();
+        }
+    }
+}
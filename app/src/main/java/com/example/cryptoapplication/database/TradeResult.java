@@ -0,0 +1,44 @@
+package com.example.cryptoapplication.database;
+
+/**
+ * Outcome of a trade or balance change executed by {@link TradeExecutor}.
+ */
+public class TradeResult {
+
+    public enum TradeStatus {
+        SUCCESS,
+        INVALID_INPUT,
+        INSUFFICIENT_FUNDS,
+        INSUFFICIENT_HOLDINGS,
+        FAILURE
+    }
+
+    private final TradeStatus status;
+    private final long balanceUnits;
+    private final String message;
+
+    public TradeResult(TradeStatus status, long balanceUnits, String message) {
+        this.status = status;
+        this.balanceUnits = balanceUnits;
+        this.message = message;
+    }
+
+    public boolean isSuccess() {
+        return status == TradeStatus.SUCCESS;
+    }
+
+    public TradeStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The cash balance after the operation, in fixed-point units (valid on success)
+     */
+    public long getBalanceUnits() {
+        return balanceUnits;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
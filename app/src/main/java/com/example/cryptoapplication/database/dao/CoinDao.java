@@ -2,7 +2,9 @@ package com.example.cryptoapplication.database.dao;
 
 import com.example.cryptoapplication.models.CoinModel;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO interface for Coin-related database operations.
@@ -17,6 +19,21 @@ public interface CoinDao extends BaseDao<CoinModel> {
      */
     CoinModel findByCoinId(String coinId);
     
+    /**
+     * Find several coins by coin ID with one query (chunked for very large inputs)
+     * @param coinIds The coin IDs to look up
+     * @return Map from coin ID to coin; IDs that are not cached are absent
+     */
+    Map<String, CoinModel> findByCoinIds(Collection<String> coinIds);
+    
+    /**
+     * Insert or update a batch of coins in a single transaction.
+     * Rows whose last_updated value has not changed are left untouched.
+     * @param coins The coins to write
+     * @return The number of rows inserted or updated
+     */
+    int upsertAll(List<CoinModel> coins);
+    
     /**
      * Find coins by symbol
      * @param symbol The symbol to search for
@@ -25,9 +42,10 @@ public interface CoinDao extends BaseDao<CoinModel> {
     List<CoinModel> findBySymbol(String symbol);
     
     /**
-     * Search coins by name (partial match)
+     * Search coins by name, symbol or coin id; each word of the query matches the start of a word
      * @param query The search query
-     * @return List of coins matching the search query
+     * @return Coins matching every word: exact symbol first, then names starting with the query,
+     *         then by market cap; empty for a query with no letters or digits
      */
     List<CoinModel> searchByName(String query);
     
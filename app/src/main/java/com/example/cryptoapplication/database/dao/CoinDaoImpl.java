@@ -1,16 +1,23 @@
 package com.example.cryptoapplication.database.dao;
 
 import android.content.ContentValues;
-import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 
 import com.example.cryptoapplication.database.CryptoDatabaseContract;
 import com.example.cryptoapplication.database.CryptoDatabaseHelper;
 import com.example.cryptoapplication.models.CoinModel;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Concrete implementation of CoinDao interface.
@@ -18,10 +25,43 @@ import java.util.List;
  */
 public class CoinDaoImpl implements CoinDao {
     
+    // Column order shared by the bulk upsert statements; bind indexes follow this array
+    private static final String[] UPSERT_COLUMNS = {
+        CryptoDatabaseContract.CoinCache.COLUMN_COIN_ID,
+        CryptoDatabaseContract.CoinCache.COLUMN_SYMBOL,
+        CryptoDatabaseContract.CoinCache.COLUMN_NAME,
+        CryptoDatabaseContract.CoinCache.COLUMN_IMAGE,
+        CryptoDatabaseContract.CoinCache.COLUMN_CURRENT_PRICE,
+        CryptoDatabaseContract.CoinCache.COLUMN_MARKET_CAP,
+        CryptoDatabaseContract.CoinCache.COLUMN_MARKET_CAP_RANK,
+        CryptoDatabaseContract.CoinCache.COLUMN_FULLY_DILUTED_VALUATION,
+        CryptoDatabaseContract.CoinCache.COLUMN_TOTAL_VOLUME,
+        CryptoDatabaseContract.CoinCache.COLUMN_HIGH_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_LOW_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_PRICE_CHANGE_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_PRICE_CHANGE_PERCENTAGE_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_MARKET_CAP_CHANGE_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_MARKET_CAP_CHANGE_PERCENTAGE_24H,
+        CryptoDatabaseContract.CoinCache.COLUMN_CIRCULATING_SUPPLY,
+        CryptoDatabaseContract.CoinCache.COLUMN_TOTAL_SUPPLY,
+        CryptoDatabaseContract.CoinCache.COLUMN_MAX_SUPPLY,
+        CryptoDatabaseContract.CoinCache.COLUMN_LAST_UPDATED,
+        CryptoDatabaseContract.CoinCache.COLUMN_CACHED_AT,
+        CryptoDatabaseContract.CoinCacheEntry.COLUMN_CURRENCY
+    };
+    
+    private static final String DEFAULT_CURRENCY = "usd";
+    // SQLITE_MAX_VARIABLE_NUMBER on SQLite builds older than 3.32
+    private static final int MAX_BIND_ARGS = 999;
+    
+    // FTS4 has no bm25(), so rank in SQL: exact symbol, then name prefix, then market cap.
+    // Args: match expression, lowered query, its length, lowered query again
+    private static final String SEARCH_SQL = buildSearchSql();
+    
     private final CryptoDatabaseHelper dbHelper;
     
-    public CoinDaoImpl(Context context) {
-        this.dbHelper = new CryptoDatabaseHelper(context);
+    public CoinDaoImpl(CryptoDatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
     }
     
     @Override
@@ -84,6 +124,67 @@ public class CoinDaoImpl implements CoinDao {
         return db.update(CryptoDatabaseContract.CoinCache.TABLE_NAME, values, selection, selectionArgs);
     }
     
+    @Override
+    public int upsertAll(List<CoinModel> coins) {
+        if (coins == null || coins.isEmpty()) {
+            return 0;
+        }
+        
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long cachedAt = System.currentTimeMillis();
+        int written = 0;
+        
+        // UPSERT needs SQLite 3.24, which ships with Android 11; older devices
+        // use an UPDATE followed by an INSERT OR IGNORE for rows that were not there.
+        boolean nativeUpsert = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+        SQLiteStatement upsert = null;
+        SQLiteStatement update = null;
+        SQLiteStatement insert = null;
+        
+        db.beginTransactionNonExclusive();
+        try {
+            if (nativeUpsert) {
+                upsert = db.compileStatement(buildUpsertSql());
+            } else {
+                update = db.compileStatement(buildChangedRowUpdateSql());
+                insert = db.compileStatement(buildInsertSql("INSERT OR IGNORE"));
+            }
+            
+            for (CoinModel coin : coins) {
+                if (coin == null || coin.getId() == null) {
+                    continue;
+                }
+                String lastUpdated = coin.getLastUpdated() != null
+                        ? coin.getLastUpdated() : String.valueOf(cachedAt);
+                
+                if (nativeUpsert) {
+                    bindCoin(upsert, coin, lastUpdated, cachedAt);
+                    written += upsert.executeUpdateDelete();
+                } else {
+                    // SET values occupy indexes 1..n-1 (everything but coin_id), then the WHERE args
+                    bindCoinValues(update, 1, coin, lastUpdated, cachedAt);
+                    int whereIndex = UPSERT_COLUMNS.length;
+                    update.bindString(whereIndex, coin.getId());
+                    update.bindString(whereIndex + 1, lastUpdated);
+                    int changed = update.executeUpdateDelete();
+                    if (changed == 0) {
+                        bindCoin(insert, coin, lastUpdated, cachedAt);
+                        changed = insert.executeUpdateDelete();
+                    }
+                    written += changed;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            if (upsert != null) upsert.close();
+            if (update != null) update.close();
+            if (insert != null) insert.close();
+        }
+        
+        return written;
+    }
+    
     @Override
     public int delete(CoinModel coin) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
@@ -173,6 +274,40 @@ public class CoinDaoImpl implements CoinDao {
         return coin;
     }
     
+    @Override
+    public Map<String, CoinModel> findByCoinIds(Collection<String> coinIds) {
+        Map<String, CoinModel> coins = new HashMap<>();
+        if (coinIds == null || coinIds.isEmpty()) {
+            return coins;
+        }
+        
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String[] projection = getCoinProjection();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(coinIds));
+        
+        for (int start = 0; start < ids.size(); start += MAX_BIND_ARGS) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_BIND_ARGS));
+            StringBuilder selection = new StringBuilder(CryptoDatabaseContract.CoinCache.COLUMN_COIN_ID).append(" IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                selection.append(i == 0 ? "?" : ",?");
+            }
+            selection.append(')');
+            
+            Cursor cursor = db.query(
+                CryptoDatabaseContract.CoinCache.TABLE_NAME,
+                projection,
+                selection.toString(), chunk.toArray(new String[0]), null, null, null
+            );
+            while (cursor.moveToNext()) {
+                CoinModel coin = cursorToCoin(cursor);
+                coins.put(coin.getId(), coin);
+            }
+            cursor.close();
+        }
+        
+        return coins;
+    }
+    
     @Override
     public List<CoinModel> findBySymbol(String symbol) {
         List<CoinModel> coins = new ArrayList<>();
@@ -199,11 +334,64 @@ public class CoinDaoImpl implements CoinDao {
     @Override
     public List<CoinModel> searchByName(String query) {
         List<CoinModel> coins = new ArrayList<>();
+        String match = toPrefixMatch(query);
+        if (match.isEmpty()) {
+            return coins;
+        }
+        String lowered = query.trim().toLowerCase(Locale.ROOT);
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         
+        Cursor cursor;
+        try {
+            cursor = db.rawQuery(SEARCH_SQL, new String[]{
+                    match, lowered, String.valueOf(lowered.length()), lowered});
+        } catch (SQLiteException e) {
+            // Index missing, e.g. a database restored from before it existed
+            e.printStackTrace();
+            return searchByNameLike(db, query);
+        }
+        
+        while (cursor.moveToNext()) {
+            coins.add(cursorToCoin(cursor));
+        }
+        cursor.close();
+        
+        return coins;
+    }
+    
+    /**
+     * Turn free text into an FTS prefix query: "bitcoin ca" becomes "bitcoin* ca*", which matches
+     * rows containing a word starting with each term. Everything but letters and digits is
+     * dropped, so quotes and operators typed by the user cannot change the query syntax.
+     */
+    static String toPrefixMatch(String query) {
+        StringBuilder match = new StringBuilder();
+        if (query == null) {
+            return "";
+        }
+        String lowered = query.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lowered.length()) {
+            while (i < lowered.length() && !Character.isLetterOrDigit(lowered.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < lowered.length() && Character.isLetterOrDigit(lowered.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (match.length() > 0) match.append(' ');
+                match.append(lowered, start, i).append('*');
+            }
+        }
+        return match.toString();
+    }
+    
+    private List<CoinModel> searchByNameLike(SQLiteDatabase db, String query) {
+        List<CoinModel> coins = new ArrayList<>();
         String[] projection = getCoinProjection();
         String selection = CryptoDatabaseContract.CoinCache.COLUMN_NAME + " LIKE ?";
-        String[] selectionArgs = {"%" + query + "%"};
+        String[] selectionArgs = {"%" + query.trim() + "%"};
         
         Cursor cursor = db.query(
             CryptoDatabaseContract.CoinCache.TABLE_NAME,
@@ -414,7 +602,105 @@ public class CoinDaoImpl implements CoinDao {
         return db.delete(CryptoDatabaseContract.CoinCache.TABLE_NAME, selection, selectionArgs);
     }
     
-    private String[] getCoinProjection() {
+    private static String buildInsertSql(String verb) {
+        StringBuilder sql = new StringBuilder(verb).append(" INTO ")
+                .append(CryptoDatabaseContract.CoinCache.TABLE_NAME).append(" (");
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < UPSERT_COLUMNS.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                params.append(", ");
+            }
+            sql.append(UPSERT_COLUMNS[i]);
+            params.append('?');
+        }
+        return sql.append(") VALUES (").append(params).append(')').toString();
+    }
+    
+    private static String buildSearchSql() {
+        String search = CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME;
+        StringBuilder sql = new StringBuilder("SELECT ");
+        String[] columns = getCoinProjection();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("c.").append(columns[i]);
+        }
+        return sql.append(" FROM ").append(search)
+                .append(" JOIN ").append(CryptoDatabaseContract.CoinCache.TABLE_NAME).append(" c ON c.")
+                .append(CryptoDatabaseContract.CoinCacheEntry._ID).append(" = ").append(search).append(".docid")
+                .append(" WHERE ").append(search).append(" MATCH ?")
+                .append(" ORDER BY lower(c.").append(CryptoDatabaseContract.CoinCache.COLUMN_SYMBOL).append(") = ? DESC, ")
+                .append("substr(lower(c.").append(CryptoDatabaseContract.CoinCache.COLUMN_NAME).append("), 1, ?) = ? DESC, ")
+                .append("c.").append(CryptoDatabaseContract.CoinCache.COLUMN_MARKET_CAP).append(" DESC")
+                .toString();
+    }
+    
+    private static String buildUpsertSql() {
+        StringBuilder sql = new StringBuilder(buildInsertSql("INSERT"))
+                .append(" ON CONFLICT(").append(CryptoDatabaseContract.CoinCache.COLUMN_COIN_ID)
+                .append(") DO UPDATE SET ");
+        for (int i = 1; i < UPSERT_COLUMNS.length; i++) {
+            if (i > 1) sql.append(", ");
+            sql.append(UPSERT_COLUMNS[i]).append(" = excluded.").append(UPSERT_COLUMNS[i]);
+        }
+        return sql.append(" WHERE ").append(CryptoDatabaseContract.CoinCache.TABLE_NAME).append('.')
+                .append(CryptoDatabaseContract.CoinCache.COLUMN_LAST_UPDATED)
+                .append(" IS NOT excluded.").append(CryptoDatabaseContract.CoinCache.COLUMN_LAST_UPDATED)
+                .toString();
+    }
+    
+    private static String buildChangedRowUpdateSql() {
+        StringBuilder sql = new StringBuilder("UPDATE ")
+                .append(CryptoDatabaseContract.CoinCache.TABLE_NAME).append(" SET ");
+        for (int i = 1; i < UPSERT_COLUMNS.length; i++) {
+            if (i > 1) sql.append(", ");
+            sql.append(UPSERT_COLUMNS[i]).append(" = ?");
+        }
+        return sql.append(" WHERE ").append(CryptoDatabaseContract.CoinCache.COLUMN_COIN_ID).append(" = ? AND ")
+                .append(CryptoDatabaseContract.CoinCache.COLUMN_LAST_UPDATED).append(" IS NOT ?")
+                .toString();
+    }
+    
+    private static void bindCoin(SQLiteStatement statement, CoinModel coin, String lastUpdated, long cachedAt) {
+        statement.clearBindings();
+        statement.bindString(1, coin.getId());
+        bindCoinValues(statement, 2, coin, lastUpdated, cachedAt);
+    }
+    
+    // Binds every UPSERT_COLUMNS entry except coin_id, starting at the given index
+    private static void bindCoinValues(SQLiteStatement statement, int index, CoinModel coin,
+                                       String lastUpdated, long cachedAt) {
+        bindText(statement, index++, coin.getSymbol() != null ? coin.getSymbol() : "");
+        bindText(statement, index++, coin.getName() != null ? coin.getName() : coin.getId());
+        bindText(statement, index++, coin.getImage());
+        statement.bindDouble(index++, coin.getCurrentPrice());
+        statement.bindDouble(index++, coin.getMarketCap());
+        statement.bindLong(index++, coin.getMarketCapRank());
+        statement.bindDouble(index++, coin.getFullyDilutedValuation());
+        statement.bindDouble(index++, coin.getTotalVolume());
+        statement.bindDouble(index++, coin.getHigh24h());
+        statement.bindDouble(index++, coin.getLow24h());
+        statement.bindDouble(index++, coin.getPriceChange24h());
+        statement.bindDouble(index++, coin.getPriceChangePercentage24h());
+        statement.bindDouble(index++, coin.getMarketCapChange24h());
+        statement.bindDouble(index++, coin.getMarketCapChangePercentage24h());
+        statement.bindDouble(index++, coin.getCirculatingSupply());
+        statement.bindDouble(index++, coin.getTotalSupply());
+        statement.bindDouble(index++, coin.getMaxSupply());
+        statement.bindString(index++, lastUpdated);
+        statement.bindLong(index++, cachedAt);
+        statement.bindString(index, DEFAULT_CURRENCY);
+    }
+    
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+    
+    private static String[] getCoinProjection() {
         return new String[]{
             CryptoDatabaseContract.CoinCache.COLUMN_COIN_ID,
             CryptoDatabaseContract.CoinCache.COLUMN_SYMBOL,
@@ -460,6 +746,7 @@ public class CoinDaoImpl implements CoinDao {
         coin.setTotalSupply(cursor.getDouble(cursor.getColumnIndexOrThrow(CryptoDatabaseContract.CoinCache.COLUMN_TOTAL_SUPPLY)));
         coin.setMaxSupply(cursor.getDouble(cursor.getColumnIndexOrThrow(CryptoDatabaseContract.CoinCache.COLUMN_MAX_SUPPLY)));
         coin.setLastUpdated(cursor.getString(cursor.getColumnIndexOrThrow(CryptoDatabaseContract.CoinCache.COLUMN_LAST_UPDATED)));
+        coin.setCachedAt(cursor.getLong(cursor.getColumnIndexOrThrow(CryptoDatabaseContract.CoinCache.COLUMN_CACHED_AT)));
         return coin;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.cryptoapplication.database.dao;
 
+import com.example.cryptoapplication.models.ConsolidatedAsset;
 import com.example.cryptoapplication.models.PortfolioItem;
 
 import java.util.List;
@@ -66,6 +67,41 @@ public interface PortfolioDao extends BaseDao<PortfolioItem> {
     boolean addTransaction(long userId, String coinId, double quantity, 
                         double pricePerCoin, String transactionType);
     
+    /**
+     * Append a trade to the user's transaction ledger
+     * @param userId The ID of the user
+     * @param coinId The ID of the coin
+     * @param transactionType The type of transaction (BUY/SELL)
+     * @param quantity The quantity traded
+     * @param pricePerCoin The price per coin at execution
+     * @param timestamp The execution time in milliseconds
+     * @return The row ID of the ledger entry, or -1 if failed
+     */
+    long recordTransaction(long userId, String coinId, String transactionType,
+                           double quantity, double pricePerCoin, long timestamp);
+    
+    /**
+     * Get a user's trade ledger, newest first
+     * @param userId The ID of the user
+     * @return List of ledger entries mapped to portfolio items
+     */
+    List<PortfolioItem> getTransactionHistory(long userId);
+    
+    /**
+     * Get the quantity of a coin currently held by a user
+     * @param userId The ID of the user
+     * @param coinId The ID of the coin
+     * @return Quantity in fixed-point units, or 0 if nothing is held
+     */
+    long getHoldingUnits(long userId, String coinId);
+    
+    /**
+     * Get every coin a user currently holds, read from the materialized holdings table
+     * @param userId The ID of the user
+     * @return Assets with coin ID, quantity, cost basis and trade count set; name, symbol and price are left for the caller
+     */
+    List<ConsolidatedAsset> getHoldings(long userId);
+    
     /**
      * Remove all portfolio items for a specific user and coin
      * @param userId The ID of the user
@@ -1,12 +1,12 @@
 package com.example.cryptoapplication.database.dao;
 
 import android.content.ContentValues;
-import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.example.cryptoapplication.database.CryptoDatabaseContract;
 import com.example.cryptoapplication.database.CryptoDatabaseHelper;
+import com.example.cryptoapplication.models.ConsolidatedAsset;
 import com.example.cryptoapplication.models.PortfolioItem;
 
 import java.util.ArrayList;
@@ -16,8 +16,8 @@ public class PortfolioDaoImpl implements PortfolioDao {
 
     private final CryptoDatabaseHelper dbHelper;
 
-    public PortfolioDaoImpl(Context context) {
-        this.dbHelper = new CryptoDatabaseHelper(context);
+    public PortfolioDaoImpl(CryptoDatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
     }
 
     @Override
@@ -217,6 +217,73 @@ public class PortfolioDaoImpl implements PortfolioDao {
         return result != -1;
     }
 
+    @Override
+    public long recordTransaction(long userId, String coinId, String transactionType,
+                                  double quantity, double pricePerCoin, long timestamp) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        ContentValues v = new ContentValues();
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID, userId);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_TYPE, transactionType);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID, coinId);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY, quantity);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_PRICE_PER_COIN, pricePerCoin);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_FIAT_AMOUNT, quantity * pricePerCoin);
+        v.put(CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP, timestamp);
+        return db.insert(CryptoDatabaseContract.TransactionEntry.TABLE_NAME, null, v);
+    }
+
+    @Override
+    public List<PortfolioItem> getTransactionHistory(long userId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<PortfolioItem> list = new ArrayList<>();
+        // Served by the (user_id, timestamp) index: only this user's rows are visited
+        Cursor c = db.query(CryptoDatabaseContract.TransactionEntry.TABLE_NAME, transactionProjection(),
+                CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID + " = ?",
+                new String[]{ String.valueOf(userId) }, null, null,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP + " DESC");
+        while (c.moveToNext()) list.add(cursorToTransaction(c));
+        c.close();
+        return list;
+    }
+
+    @Override
+    public long getHoldingUnits(long userId, String coinId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String sql = "SELECT " + CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + " FROM " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + " WHERE " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + " = ? AND " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + " = ?";
+        Cursor c = db.rawQuery(sql, new String[]{ String.valueOf(userId), coinId });
+        long units = 0;
+        if (c.moveToFirst()) units = c.getLong(0);
+        c.close();
+        return units;
+    }
+
+    @Override
+    public List<ConsolidatedAsset> getHoldings(long userId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String sql = "SELECT " + CryptoDatabaseContract.HoldingsEntry.COLUMN_COIN_ID + ", " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + ", " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_COST_BASIS + ", " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_TX_COUNT + " FROM " +
+                CryptoDatabaseContract.HoldingsEntry.TABLE_NAME + " WHERE " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_USER_ID + " = ? AND " +
+                CryptoDatabaseContract.HoldingsEntry.COLUMN_QUANTITY + " > 0";
+        Cursor c = db.rawQuery(sql, new String[]{ String.valueOf(userId) });
+        List<ConsolidatedAsset> list = new ArrayList<>(c.getCount());
+        while (c.moveToNext()) {
+            ConsolidatedAsset asset = new ConsolidatedAsset();
+            asset.setCoinId(c.getString(0));
+            asset.setTotalQuantityUnits(c.getLong(1));
+            asset.setCostBasisUnits(c.getLong(2));
+            asset.setTransactionCount(c.getInt(3));
+            list.add(asset);
+        }
+        c.close();
+        return list;
+    }
+
     @Override
     public int removeAllByUserAndCoin(long userId, String coinId) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
@@ -308,6 +375,37 @@ public class PortfolioDaoImpl implements PortfolioDao {
         };
     }
 
+    private String[] transactionProjection() {
+        return new String[]{
+                CryptoDatabaseContract.TransactionEntry._ID,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_TYPE,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_PRICE_PER_COIN,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_FIAT_AMOUNT,
+                CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP
+        };
+    }
+
+    private PortfolioItem cursorToTransaction(Cursor c) {
+        PortfolioItem item = new PortfolioItem();
+        item.setId(c.getLong(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry._ID)));
+        item.setUserId(c.getLong(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_USER_ID)));
+        item.setTransactionType(c.getString(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_TYPE)));
+        item.setCoinId(c.getString(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_COIN_ID)));
+        item.setQuantity(c.getDouble(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_QUANTITY)));
+        double price = c.getDouble(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_PRICE_PER_COIN));
+        item.setPurchasePrice(price);
+        item.setCurrentPrice(price);
+        item.setTotalValue(c.getDouble(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_FIAT_AMOUNT)));
+        long timestamp = c.getLong(c.getColumnIndexOrThrow(CryptoDatabaseContract.TransactionEntry.COLUMN_TIMESTAMP));
+        item.setPurchaseDate(timestamp);
+        item.setCreatedAt(timestamp);
+        item.setUpdatedAt(timestamp);
+        return item;
+    }
+
     private PortfolioItem cursorToItem(Cursor c) {
         PortfolioItem item = new PortfolioItem();
         item.setId(c.getLong(c.getColumnIndexOrThrow(CryptoDatabaseContract.PortfolioEntry._ID)));
@@ -44,6 +44,13 @@ public interface UserDao extends BaseDao<User> {
      */
     int updateLastLogin(long userId);
     
+    /**
+     * Get a user's cash balance in fixed-point units
+     * @param userId The ID of the user
+     * @return Balance in micro-cents, or 0 if the user does not exist
+     */
+    long getBalanceUnits(long userId);
+    
     /**
      * Get the currently logged in user
      * @return The currently logged in user, or null if none
@@ -1,7 +1,6 @@
 package com.example.cryptoapplication.database.dao;
 
 import android.content.ContentValues;
-import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
@@ -20,8 +19,8 @@ public class UserDaoImpl implements UserDao {
     
     private final CryptoDatabaseHelper dbHelper;
     
-    public UserDaoImpl(Context context) {
-        this.dbHelper = new CryptoDatabaseHelper(context);
+    public UserDaoImpl(CryptoDatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
     }
     
     @Override
@@ -257,6 +256,24 @@ public class UserDaoImpl implements UserDao {
         return db.update(CryptoDatabaseContract.Users.TABLE_NAME, values, selection, selectionArgs);
     }
     
+    @Override
+    public long getBalanceUnits(long userId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        
+        String query = "SELECT " + CryptoDatabaseContract.Users.COLUMN_BALANCE_UNITS +
+                " FROM " + CryptoDatabaseContract.Users.TABLE_NAME +
+                " WHERE " + CryptoDatabaseContract.Users._ID + " = ?";
+        Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId)});
+        
+        long balance = 0;
+        if (cursor.moveToFirst()) {
+            balance = cursor.getLong(0);
+        }
+        cursor.close();
+        
+        return balance;
+    }
+    
     @Override
     public User getCurrentUser() {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
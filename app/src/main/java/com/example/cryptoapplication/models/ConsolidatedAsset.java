@@ -1,5 +1,7 @@
 package com.example.cryptoapplication.models;
 
+import com.example.cryptoapplication.utils.FixedPoint;
+
 /**
  * Represents a consolidated view of user's holdings for a specific coin
  * Shows total quantity, current price, and total value
@@ -8,9 +10,11 @@ public class ConsolidatedAsset {
     private String coinId;
     private String coinName;
     private String coinSymbol;
-    private double totalQuantity;
-    private double currentPrice;
-    private double totalValue;
+    // Fixed-point: satoshi-style quantity units and micro-cent amounts (see FixedPoint)
+    private long totalQuantityUnits;
+    private long currentPriceUnits;
+    private long totalValueUnits;
+    private long costBasisUnits;
     private int transactionCount;
     
     public ConsolidatedAsset() {}
@@ -19,9 +23,10 @@ public class ConsolidatedAsset {
         this.coinId = coinId;
         this.coinName = coinName;
         this.coinSymbol = coinSymbol;
-        this.totalQuantity = 0.0;
-        this.currentPrice = 0.0;
-        this.totalValue = 0.0;
+        this.totalQuantityUnits = 0L;
+        this.currentPriceUnits = 0L;
+        this.totalValueUnits = 0L;
+        this.costBasisUnits = 0L;
         this.transactionCount = 0;
     }
     
@@ -35,14 +40,29 @@ public class ConsolidatedAsset {
     public String getCoinSymbol() { return coinSymbol; }
     public void setCoinSymbol(String coinSymbol) { this.coinSymbol = coinSymbol; }
     
-    public double getTotalQuantity() { return totalQuantity; }
-    public void setTotalQuantity(double totalQuantity) { this.totalQuantity = totalQuantity; }
+    public double getTotalQuantity() { return FixedPoint.toQuantity(totalQuantityUnits); }
+    public void setTotalQuantity(double totalQuantity) { this.totalQuantityUnits = FixedPoint.fromQuantity(totalQuantity); }
+    
+    public long getTotalQuantityUnits() { return totalQuantityUnits; }
+    public void setTotalQuantityUnits(long totalQuantityUnits) { this.totalQuantityUnits = totalQuantityUnits; }
+    
+    public double getCurrentPrice() { return FixedPoint.toFiat(currentPriceUnits); }
+    public void setCurrentPrice(double currentPrice) { this.currentPriceUnits = FixedPoint.fromFiat(currentPrice); }
+    
+    public long getCurrentPriceUnits() { return currentPriceUnits; }
+    public void setCurrentPriceUnits(long currentPriceUnits) { this.currentPriceUnits = currentPriceUnits; }
+    
+    public double getTotalValue() { return FixedPoint.toFiat(totalValueUnits); }
+    public void setTotalValue(double totalValue) { this.totalValueUnits = FixedPoint.fromFiat(totalValue); }
+    
+    public long getTotalValueUnits() { return totalValueUnits; }
+    public void setTotalValueUnits(long totalValueUnits) { this.totalValueUnits = totalValueUnits; }
     
-    public double getCurrentPrice() { return currentPrice; }
-    public void setCurrentPrice(double currentPrice) { this.currentPrice = currentPrice; }
+    public double getCostBasis() { return FixedPoint.toFiat(costBasisUnits); }
+    public void setCostBasis(double costBasis) { this.costBasisUnits = FixedPoint.fromFiat(costBasis); }
     
-    public double getTotalValue() { return totalValue; }
-    public void setTotalValue(double totalValue) { this.totalValue = totalValue; }
+    public long getCostBasisUnits() { return costBasisUnits; }
+    public void setCostBasisUnits(long costBasisUnits) { this.costBasisUnits = costBasisUnits; }
     
     public int getTransactionCount() { return transactionCount; }
     public void setTransactionCount(int transactionCount) { this.transactionCount = transactionCount; }
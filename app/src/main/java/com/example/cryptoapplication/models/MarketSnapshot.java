@@ -0,0 +1,166 @@
+package com.example.cryptoapplication.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented view of the market at one refresh.
+ * Hot paths (sorting, filtering, valuation) read the primitive columns by index instead of
+ * walking CoinModel objects; the rows themselves are kept only for rendering.
+ * Built once per refresh and then shared between threads without locking.
+ */
+public final class MarketSnapshot {
+
+    public static final MarketSnapshot EMPTY = new MarketSnapshot(Collections.emptyList(), 0L);
+
+    private final List<CoinModel> coins;
+    private final String[] ids;
+    private final String[] lowerSymbols;
+    private final String[] lowerNames;
+    private final double[] prices;
+    private final double[] priceChanges24h;
+    private final double[] changePercentages24h;
+    private final double[] marketCaps;
+    private final double[] marketCapChangePercentages24h;
+    private final double[] volumes;
+    private final Map<String, Integer> indexById;
+    private final long builtAt;
+
+    private MarketSnapshot(List<CoinModel> rows, long builtAt) {
+        List<CoinModel> kept = new ArrayList<>(rows.size());
+        Map<String, Integer> index = new HashMap<>(rows.size() * 2);
+        for (CoinModel coin : rows) {
+            // The first row wins if ranks shifted and a coin appears twice
+            if (coin != null && coin.getId() != null && !index.containsKey(coin.getId())) {
+                index.put(coin.getId().intern(), kept.size());
+                kept.add(coin);
+            }
+        }
+
+        int size = kept.size();
+        this.coins = Collections.unmodifiableList(kept);
+        this.ids = new String[size];
+        this.lowerSymbols = new String[size];
+        this.lowerNames = new String[size];
+        this.prices = new double[size];
+        this.priceChanges24h = new double[size];
+        this.changePercentages24h = new double[size];
+        this.marketCaps = new double[size];
+        this.marketCapChangePercentages24h = new double[size];
+        this.volumes = new double[size];
+        for (int i = 0; i < size; i++) {
+            CoinModel coin = kept.get(i);
+            ids[i] = coin.getId().intern();
+            lowerSymbols[i] = coin.getSymbol() != null ? coin.getSymbol().toLowerCase(Locale.ROOT).intern() : "";
+            lowerNames[i] = coin.getName() != null ? coin.getName().toLowerCase(Locale.ROOT) : "";
+            prices[i] = coin.getCurrentPrice();
+            priceChanges24h[i] = coin.getPriceChange24h();
+            changePercentages24h[i] = coin.getPriceChangePercentage24h();
+            marketCaps[i] = coin.getMarketCap();
+            marketCapChangePercentages24h[i] = coin.getMarketCapChangePercentage24h();
+            volumes[i] = coin.getTotalVolume();
+        }
+        this.indexById = index;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * @param coins Market rows in rank order; null rows and repeated ids are dropped
+     */
+    public static MarketSnapshot of(List<CoinModel> coins) {
+        if (coins == null || coins.isEmpty()) {
+            return EMPTY;
+        }
+        return new MarketSnapshot(coins, System.currentTimeMillis());
+    }
+
+    /**
+     * Apply an update to this snapshot.
+     * An update at least as long as this snapshot replaces it; a shorter one (e.g. a top-30
+     * refresh over a paged market of 1000) is applied with {@link #withRows(List)}.
+     * @return A new snapshot; this one is unchanged
+     */
+    public MarketSnapshot mergedWith(List<CoinModel> update) {
+        if (update == null || update.isEmpty()) {
+            return this;
+        }
+        if (update.size() >= coins.size()) {
+            return of(update);
+        }
+        return withRows(update);
+    }
+
+    /**
+     * Apply a partial update, e.g. the pages of a market load that did arrive.
+     * Replaces the rows the update carries, adds coins that are new to the snapshot and keeps
+     * the rest. The rows are re-sorted by market cap so positions stay in rank order; equal
+     * caps keep their previous order.
+     * @return A new snapshot; this one is unchanged
+     */
+    public MarketSnapshot withRows(List<CoinModel> update) {
+        if (update == null || update.isEmpty()) {
+            return this;
+        }
+        List<CoinModel> merged = new ArrayList<>(coins.size() + update.size());
+        merged.addAll(coins);
+        for (CoinModel coin : update) {
+            if (coin == null || coin.getId() == null) {
+                continue;
+            }
+            int i = indexOf(coin.getId());
+            if (i >= 0) {
+                merged.set(i, coin);
+            } else {
+                merged.add(coin);
+            }
+        }
+        // Stable, and the rows are nearly sorted already, so this is close to a single pass
+        Collections.sort(merged, (a, b) -> Double.compare(b.getMarketCap(), a.getMarketCap()));
+        return of(merged);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * @return Wall-clock time this snapshot was built
+     */
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * @return Position of the coin, or -1 if it is not in this snapshot
+     */
+    public int indexOf(String coinId) {
+        Integer index = coinId != null ? indexById.get(coinId) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return All rows in rank order, unmodifiable
+     */
+    public List<CoinModel> getCoins() {
+        return coins;
+    }
+
+    public CoinModel coin(int i) { return coins.get(i); }
+    public String id(int i) { return ids[i]; }
+    public String lowerSymbol(int i) { return lowerSymbols[i]; }
+    public String lowerName(int i) { return lowerNames[i]; }
+    public double price(int i) { return prices[i]; }
+    public double priceChange24h(int i) { return priceChanges24h[i]; }
+    public double changePercentage24h(int i) { return changePercentages24h[i]; }
+    public double marketCap(int i) { return marketCaps[i]; }
+    public double marketCapChangePercentage24h(int i) { return marketCapChangePercentages24h[i]; }
+    public double volume(int i) { return volumes[i]; }
+}
@@ -1,12 +1,15 @@
 package com.example.cryptoapplication.models;
 
+import com.example.cryptoapplication.utils.FixedPoint;
+
 public class PortfolioItem {
     private long id;
     private long userId;
     private String coinId;
     private double amount;
-    private double quantity;
-    private double purchasePrice;
+    // Fixed-point: satoshi-style quantity units and micro-cent prices (see FixedPoint)
+    private long quantityUnits;
+    private long purchasePriceUnits;
     private long purchaseDate;
     private double currentPrice;
     private double totalValue;
@@ -30,11 +33,17 @@ public class PortfolioItem {
     public double getAmount() { return amount; }
     public void setAmount(double amount) { this.amount = amount; }
 
-    public double getQuantity() { return quantity; }
-    public void setQuantity(double quantity) { this.quantity = quantity; }
+    public double getQuantity() { return FixedPoint.toQuantity(quantityUnits); }
+    public void setQuantity(double quantity) { this.quantityUnits = FixedPoint.fromQuantity(quantity); }
+
+    public long getQuantityUnits() { return quantityUnits; }
+    public void setQuantityUnits(long quantityUnits) { this.quantityUnits = quantityUnits; }
+
+    public double getPurchasePrice() { return FixedPoint.toFiat(purchasePriceUnits); }
+    public void setPurchasePrice(double purchasePrice) { this.purchasePriceUnits = FixedPoint.fromFiat(purchasePrice); }
 
-    public double getPurchasePrice() { return purchasePrice; }
-    public void setPurchasePrice(double purchasePrice) { this.purchasePrice = purchasePrice; }
+    public long getPurchasePriceUnits() { return purchasePriceUnits; }
+    public void setPurchasePriceUnits(long purchasePriceUnits) { this.purchasePriceUnits = purchasePriceUnits; }
 
     public long getPurchaseDate() { return purchaseDate; }
     public void setPurchaseDate(long purchaseDate) { this.purchaseDate = purchaseDate; }
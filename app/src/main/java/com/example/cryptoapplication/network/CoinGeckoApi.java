@@ -2,9 +2,11 @@ package com.example.cryptoapplication.network;
 
 import com.example.cryptoapplication.models.CoinModel;
 import java.util.List;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * Retrofit interface for CoinGecko API
@@ -30,6 +32,21 @@ public interface CoinGeckoApi {
         @Query("sparkline") boolean sparkline
     );
     
+    /**
+     * {@link #getCoinMarkets} with the body neither buffered nor converted, so large pages can be
+     * read row by row with {@link CoinModelTypeAdapter#readArray} while they are still arriving
+     * @return Call object for the raw JSON array; the caller must close the body
+     */
+    @Streaming
+    @GET("coins/markets")
+    Call<ResponseBody> streamCoinMarkets(
+        @Query("vs_currency") String vsCurrency,
+        @Query("order") String order,
+        @Query("per_page") int perPage,
+        @Query("page") int page,
+        @Query("sparkline") boolean sparkline
+    );
+    
     /**
      * Simplified method to get top cryptocurrencies by market cap
      * @param vsCurrency The target currency (default: usd)
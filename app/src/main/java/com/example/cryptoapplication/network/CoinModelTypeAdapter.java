@@ -0,0 +1,178 @@
+package com.example.cryptoapplication.network;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Streaming Gson adapter for coins/markets rows.
+ * Fields are matched with a switch instead of reflection, and nulls (CoinGecko sends them for
+ * unknown supplies and valuations) leave the field at its default, as the reflective adapter does.
+ * Unknown fields such as sparkline_in_7d or roi are skipped without being materialized.
+ */
+public class CoinModelTypeAdapter extends TypeAdapter<CoinModel> {
+
+    private final boolean extendedFields;
+
+    /**
+     * Reads every field CoinModel declares
+     */
+    public CoinModelTypeAdapter() {
+        this(true);
+    }
+
+    /**
+     * @param extendedFields False to skip the fields only coin_cache keeps (supplies, valuation,
+     *                       24h high/low and market cap change, last_updated) and read just what
+     *                       lists and MarketSnapshot use
+     */
+    public CoinModelTypeAdapter(boolean extendedFields) {
+        this.extendedFields = extendedFields;
+    }
+
+    @Override
+    public CoinModel read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        CoinModel coin = new CoinModel();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    coin.setId(in.nextString());
+                    break;
+                case "symbol":
+                    coin.setSymbol(in.nextString());
+                    break;
+                case "name":
+                    coin.setName(in.nextString());
+                    break;
+                case "image":
+                    coin.setImage(in.nextString());
+                    break;
+                case "current_price":
+                    coin.setCurrentPrice(in.nextDouble());
+                    break;
+                case "market_cap":
+                    coin.setMarketCap(in.nextDouble());
+                    break;
+                case "market_cap_rank":
+                    coin.setMarketCapRank(in.nextInt());
+                    break;
+                case "price_change_24h":
+                    coin.setPriceChange24h(in.nextDouble());
+                    break;
+                case "price_change_percentage_24h":
+                    coin.setPriceChangePercentage24h(in.nextDouble());
+                    break;
+                case "total_volume":
+                    coin.setTotalVolume(in.nextDouble());
+                    break;
+                case "market_cap_change_percentage_24h":
+                    coin.setMarketCapChangePercentage24h(in.nextDouble());
+                    break;
+                default:
+                    if (!extendedFields || !readExtendedField(in, name, coin)) {
+                        in.skipValue();
+                    }
+                    break;
+            }
+        }
+        in.endObject();
+        return coin;
+    }
+
+    // Returns false for names CoinModel does not have, leaving the value for the caller to skip
+    private static boolean readExtendedField(JsonReader in, String name, CoinModel coin) throws IOException {
+        switch (name) {
+            case "fully_diluted_valuation":
+                coin.setFullyDilutedValuation(in.nextDouble());
+                return true;
+            case "high_24h":
+                coin.setHigh24h(in.nextDouble());
+                return true;
+            case "low_24h":
+                coin.setLow24h(in.nextDouble());
+                return true;
+            case "market_cap_change_24h":
+                coin.setMarketCapChange24h(in.nextDouble());
+                return true;
+            case "circulating_supply":
+                coin.setCirculatingSupply(in.nextDouble());
+                return true;
+            case "total_supply":
+                coin.setTotalSupply(in.nextDouble());
+                return true;
+            case "max_supply":
+                coin.setMaxSupply(in.nextDouble());
+                return true;
+            case "last_updated":
+                coin.setLastUpdated(in.nextString());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read a JSON array of coins, handing each one to the sink as soon as it is parsed
+     * instead of collecting them into a list first
+     * @return Number of coins read
+     */
+    public int readArray(JsonReader in, Consumer<CoinModel> sink) throws IOException {
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            CoinModel coin = read(in);
+            if (coin != null) {
+                sink.accept(coin);
+                count++;
+            }
+        }
+        in.endArray();
+        return count;
+    }
+
+    @Override
+    public void write(JsonWriter out, CoinModel coin) throws IOException {
+        if (coin == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(coin.getId());
+        out.name("symbol").value(coin.getSymbol());
+        out.name("name").value(coin.getName());
+        out.name("image").value(coin.getImage());
+        out.name("current_price").value(coin.getCurrentPrice());
+        out.name("market_cap").value(coin.getMarketCap());
+        out.name("market_cap_rank").value(coin.getMarketCapRank());
+        out.name("price_change_24h").value(coin.getPriceChange24h());
+        out.name("price_change_percentage_24h").value(coin.getPriceChangePercentage24h());
+        out.name("total_volume").value(coin.getTotalVolume());
+        out.name("market_cap_change_percentage_24h").value(coin.getMarketCapChangePercentage24h());
+        if (extendedFields) {
+            out.name("fully_diluted_valuation").value(coin.getFullyDilutedValuation());
+            out.name("high_24h").value(coin.getHigh24h());
+            out.name("low_24h").value(coin.getLow24h());
+            out.name("market_cap_change_24h").value(coin.getMarketCapChange24h());
+            out.name("circulating_supply").value(coin.getCirculatingSupply());
+            out.name("total_supply").value(coin.getTotalSupply());
+            out.name("max_supply").value(coin.getMaxSupply());
+            out.name("last_updated").value(coin.getLastUpdated());
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.cryptoapplication.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Schedules CoinGecko calls through a shared token bucket.
+ * Foreground requests may drain the bucket; requests tagged as background leave a
+ * reserve for them. 429 and 503 responses pause the whole client for the server's
+ * Retry-After (or an exponential backoff) with jitter, then the call is retried.
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    /** Request header marking low-priority calls; stripped before the request is sent */
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+    public static final String PRIORITY_BACKGROUND = "background";
+
+    private static final int MAX_RETRIES = 3;
+    private static final long BASE_BACKOFF_MS = 1_000L;
+    private static final long MAX_BACKOFF_MS = 60_000L;
+    private static final long MAX_JITTER_MS = 1_000L;
+    // Longest a queued call sleeps before checking whether it was cancelled
+    private static final long CANCEL_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TokenBucket bucket;
+    private final double backgroundReserve;
+
+    /**
+     * The bucket refills at callsPerMinute - burst, so a full burst plus a minute of refill
+     * never exceeds callsPerMinute in any 60 second window.
+     * @param callsPerMinute Budget to stay under
+     * @param burst Calls that may go out back to back after an idle period
+     */
+    public RateLimitInterceptor(int callsPerMinute, int burst) {
+        this(new TokenBucket(Math.max(1, callsPerMinute - burst), burst));
+    }
+
+    RateLimitInterceptor(TokenBucket bucket) {
+        this.bucket = bucket;
+        // Background work must leave a quarter of the bucket for screens the user is looking at
+        this.backgroundReserve = Math.max(1.0, bucket.getCapacity() / 4.0);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        boolean background = PRIORITY_BACKGROUND.equals(original.header(PRIORITY_HEADER));
+        Request request = original.newBuilder().removeHeader(PRIORITY_HEADER).build();
+
+        for (int attempt = 0; ; attempt++) {
+            acquire(chain, background ? backgroundReserve : 0);
+
+            Response response = chain.proceed(request);
+            if ((response.code() != 429 && response.code() != 503) || attempt >= MAX_RETRIES) {
+                return response;
+            }
+
+            long delayMs = backoffMs(response, attempt);
+            response.close();
+            bucket.pauseFor(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        }
+    }
+
+    // Like TokenBucket.acquire, but a call cancelled while it waits leaves without taking a permit
+    private void acquire(Chain chain, double reserve) throws IOException {
+        while (true) {
+            if (chain.call().isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            long waitNanos = bucket.tryAcquire(reserve);
+            if (waitNanos == 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, CANCEL_CHECK_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rate limit");
+            }
+        }
+    }
+
+    // Server-provided Retry-After wins, otherwise exponential; both get jitter so clients do not retry in lockstep
+    static long backoffMs(Response response, int attempt) {
+        long retryAfterMs = parseRetryAfterMs(response);
+        if (retryAfterMs >= 0) {
+            return Math.min(MAX_BACKOFF_MS, retryAfterMs) + ThreadLocalRandom.current().nextLong(MAX_JITTER_MS + 1);
+        }
+        long exponential = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date; -1 when absent or unreadable
+    static long parseRetryAfterMs(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0L, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0L, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+}
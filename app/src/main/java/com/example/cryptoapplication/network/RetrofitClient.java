@@ -1,6 +1,10 @@
 package com.example.cryptoapplication.network;
 
 import com.example.cryptoapplication.BuildConfig;
+import com.example.cryptoapplication.models.CoinModel;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -13,21 +17,29 @@ import retrofit2.converter.gson.GsonConverterFactory;
 public class RetrofitClient {
     
     private static final String BASE_URL = "https://api.coingecko.com/api/v3/";
+    
+    /** CoinGecko demo/free tier budget */
+    public static final int CALLS_PER_MINUTE = 30;
+    /** Calls allowed back to back after an idle period */
+    public static final int CALL_BURST = 5;
+    
     private static Retrofit retrofit = null;
+    private static Retrofit backgroundRetrofit = null;
     
     /**
      * Get configured Retrofit instance with logging and API key interceptor
      * @return Configured Retrofit instance
      */
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
             
             // Create logging interceptor
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
             logging.setLevel(HttpLoggingInterceptor.Level.BASIC);
             
-            // Create OkHttp client with logging and API key
+            // Create OkHttp client with rate limiting, logging and API key
             OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
+            httpClient.addInterceptor(new RateLimitInterceptor(CALLS_PER_MINUTE, CALL_BURST));
             httpClient.addInterceptor(logging);
             httpClient.addInterceptor(chain -> {
                 okhttp3.Request original = chain.request();
@@ -41,13 +53,45 @@ public class RetrofitClient {
             
             retrofit = new Retrofit.Builder()
                 .baseUrl(BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(createGson()))
                 .client(httpClient.build())
                 .build();
         }
         return retrofit;
     }
     
+    /**
+     * Gson used for API responses; market rows are parsed by a streaming adapter rather than reflection
+     * @return Configured Gson instance
+     */
+    public static Gson createGson() {
+        return new GsonBuilder()
+            .registerTypeAdapter(CoinModel.class, new CoinModelTypeAdapter())
+            .create();
+    }
+    
+    /**
+     * Get a Retrofit instance for background refreshes.
+     * It shares the connection pool and rate limiter with getClient(), but its calls
+     * yield to foreground ones when the budget runs low.
+     * @return Configured Retrofit instance
+     */
+    public static synchronized Retrofit getBackgroundClient() {
+        if (backgroundRetrofit == null) {
+            Retrofit foreground = getClient();
+            OkHttpClient.Builder httpClient = ((OkHttpClient) foreground.callFactory()).newBuilder();
+            // Must run before the rate limiter, which reads and strips the header
+            httpClient.interceptors().add(0, chain -> chain.proceed(chain.request().newBuilder()
+                    .header(RateLimitInterceptor.PRIORITY_HEADER, RateLimitInterceptor.PRIORITY_BACKGROUND)
+                    .build()));
+            
+            backgroundRetrofit = foreground.newBuilder()
+                .client(httpClient.build())
+                .build();
+        }
+        return backgroundRetrofit;
+    }
+    
     /**
      * Get CoinGecko API service
      * @return CoinGecko API service interface
@@ -55,4 +99,12 @@ public class RetrofitClient {
     public static CoinGeckoApi getCoinGeckoApi() {
         return getClient().create(CoinGeckoApi.class);
     }
+    
+    /**
+     * Get CoinGecko API service for background refreshes
+     * @return CoinGecko API service interface whose calls run at background priority
+     */
+    public static CoinGeckoApi getBackgroundCoinGeckoApi() {
+        return getBackgroundClient().create(CoinGeckoApi.class);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.cryptoapplication.network;
+
+/**
+ * Token bucket that spreads API calls over a calls-per-minute budget.
+ * Callers can ask to leave a reserve in the bucket, which lets low-priority
+ * work run only while higher-priority work still has headroom.
+ */
+public class TokenBucket {
+
+    interface TimeSource {
+        long nanoTime();
+    }
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final double capacity;
+    private final double permitsPerNano;
+    private final TimeSource timeSource;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    /**
+     * @param permitsPerMinute Sustained rate
+     * @param burst Maximum permits that can be taken back to back
+     */
+    public TokenBucket(int permitsPerMinute, int burst) {
+        this(permitsPerMinute, burst, System::nanoTime);
+    }
+
+    TokenBucket(int permitsPerMinute, int burst, TimeSource timeSource) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.capacity = burst;
+        this.permitsPerNano = (double) permitsPerMinute / NANOS_PER_MINUTE;
+        this.timeSource = timeSource;
+        this.tokens = burst;
+        this.lastRefill = timeSource.nanoTime();
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Take one permit if that leaves at least {@code reserve} permits behind.
+     * @return 0 if a permit was taken, otherwise how many nanoseconds to wait before trying again
+     */
+    public synchronized long tryAcquire(double reserve) {
+        long now = timeSource.nanoTime();
+        refill(now);
+
+        if (now < pausedUntil) {
+            return pausedUntil - now;
+        }
+        if (tokens - 1 >= reserve) {
+            tokens -= 1;
+            return 0;
+        }
+        double missing = reserve + 1 - tokens;
+        return Math.max(1L, (long) Math.ceil(missing / permitsPerNano));
+    }
+
+    /**
+     * Block until a permit is available
+     * @param reserve Permits that must remain for higher-priority callers
+     */
+    public void acquire(double reserve) throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire(reserve)) > 0) {
+            Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+        }
+    }
+
+    /**
+     * Stop handing out permits for a while, e.g. when the server sent Retry-After.
+     * The bucket is also emptied so calls resume gradually rather than in a burst.
+     */
+    public synchronized void pauseFor(long nanos) {
+        long now = timeSource.nanoTime();
+        refill(now);
+        pausedUntil = Math.max(pausedUntil, now + nanos);
+        tokens = 0;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -1,89 +1,607 @@
 package com.example.cryptoapplication.repository;
 
+import android.content.Context;
+
+import com.example.cryptoapplication.database.CryptoDatabaseManager;
+import com.example.cryptoapplication.database.dao.CoinDao;
 import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
 import com.example.cryptoapplication.network.CoinGeckoApi;
 import com.example.cryptoapplication.network.RetrofitClient;
+import com.example.cryptoapplication.utils.AppExecutors;
+import com.example.cryptoapplication.utils.TaskScope;
+import com.example.cryptoapplication.utils.TopK;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import retrofit2.Call;
 import retrofit2.Response;
 
 /**
  * Enhanced repository using Retrofit for API calls
- * Provides better error handling and type safety
+ * Provides better error handling and type safety.
+ * Market data is served from three tiers: an in-memory snapshot, the coin_cache table,
+ * then the network. Cached data is returned immediately while a refresh runs in the background.
  */
 public class CoinRepositoryRetrofit {
     
+    /** Repeat calls within this window are answered from memory without a refresh */
+    public static final long FRESHNESS_WINDOW_MS = 30_000L;
+    
+    /** Disk rows younger than this are shown right away; older ones only if the network fails */
+    public static final long DISK_TTL_MS = 15 * 60_000L;
+    
+    private static final String VS_CURRENCY = "usd";
+    private static final int TOP_COINS_LIMIT = 30;
+    private static final String ORDER = "market_cap_desc";
+    private static final String TOP_COINS_KEY = VS_CURRENCY + "|" + TOP_COINS_LIMIT + "|" + ORDER;
+    // How often a caller waiting on someone else's fetch checks whether it was cancelled
+    private static final long CANCEL_CHECK_MS = 100L;
+    
+    // Shared by every repository instance, since each screen creates its own
+    private static final Object LOCK = new Object();
+    private static final Map<String, SharedFetch> inFlight = new HashMap<>();
+    private static final Map<String, CachedCoins> recent = new HashMap<>();
+    private static final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+    // Everything known about the market, swapped in whole so readers never see a half-applied refresh
+    private static final AtomicReference<MarketSnapshot> market = new AtomicReference<>(MarketSnapshot.EMPTY);
+    // Ranked views of the market, moved along with each published snapshot; guarded by BOARDS_LOCK
+    private static final Object BOARDS_LOCK = new Object();
+    private static final Leaderboard gainers = new Leaderboard(MarketSnapshot::changePercentage24h, true, value -> value > 0);
+    private static final Leaderboard losers = new Leaderboard(MarketSnapshot::changePercentage24h, false, value -> value < 0);
+    private static final Leaderboard volume = new Leaderboard(MarketSnapshot::volume, true, value -> value > 0);
+    private static final Leaderboard marketCapMovers = new Leaderboard(
+            (snapshot, i) -> Math.abs(snapshot.marketCapChangePercentage24h(i)), true, value -> value > 0);
+    private static final List<OnCoinsUpdatedListener> listeners = new CopyOnWriteArrayList<>();
+    // Run by each caller that joins a fetch already in flight, once it is waiting; lets tests see the join
+    static volatile Runnable onJoinedFetch;
+    
+    private static final AtomicLong memoryHits = new AtomicLong();
+    private static final AtomicLong memoryMisses = new AtomicLong();
+    private static final AtomicLong diskHits = new AtomicLong();
+    private static final AtomicLong diskMisses = new AtomicLong();
+    private static final AtomicLong networkSuccesses = new AtomicLong();
+    private static final AtomicLong networkFailures = new AtomicLong();
+    
     private final CoinGeckoApi coinGeckoApi;
+    // Same endpoints, but calls yield to foreground ones under the shared rate limit
+    private final CoinGeckoApi backgroundApi;
+    private final CoinDao coinDao;
     
+    /**
+     * Memory and network tiers only
+     */
     public CoinRepositoryRetrofit() {
-        this.coinGeckoApi = RetrofitClient.getCoinGeckoApi();
+        this(RetrofitClient.getCoinGeckoApi(), RetrofitClient.getBackgroundCoinGeckoApi(), null);
+    }
+    
+    /**
+     * All three tiers, with coin_cache as the disk tier
+     * @param context Any context; the application context is used for the database
+     */
+    public CoinRepositoryRetrofit(Context context) {
+        this(RetrofitClient.getCoinGeckoApi(), RetrofitClient.getBackgroundCoinGeckoApi(),
+                CryptoDatabaseManager.getInstance(context).getCoinDao());
+    }
+    
+    CoinRepositoryRetrofit(CoinGeckoApi coinGeckoApi) {
+        this(coinGeckoApi, coinGeckoApi, null);
+    }
+    
+    CoinRepositoryRetrofit(CoinGeckoApi coinGeckoApi, CoinDao coinDao) {
+        this(coinGeckoApi, coinGeckoApi, coinDao);
+    }
+    
+    CoinRepositoryRetrofit(CoinGeckoApi coinGeckoApi, CoinGeckoApi backgroundApi, CoinDao coinDao) {
+        this.coinGeckoApi = coinGeckoApi;
+        this.backgroundApi = backgroundApi;
+        this.coinDao = coinDao;
+    }
+    
+    /**
+     * Notified on a background thread when a refresh brings in new market data
+     */
+    public interface OnCoinsUpdatedListener {
+        void onCoinsUpdated(List<CoinModel> coins);
+    }
+    
+    public static void addOnCoinsUpdatedListener(OnCoinsUpdatedListener listener) {
+        listeners.add(listener);
+    }
+    
+    public static void removeOnCoinsUpdatedListener(OnCoinsUpdatedListener listener) {
+        listeners.remove(listener);
     }
     
     /**
-     * Fetch coins from API with proper error handling
-     * @return List of coins or empty list if error occurs
+     * Per-tier hit and miss counters since process start
+     */
+    public static class CacheStats {
+        public final long memoryHits;
+        public final long memoryMisses;
+        public final long diskHits;
+        public final long diskMisses;
+        public final long networkSuccesses;
+        public final long networkFailures;
+        
+        CacheStats(long memoryHits, long memoryMisses, long diskHits, long diskMisses,
+                   long networkSuccesses, long networkFailures) {
+            this.memoryHits = memoryHits;
+            this.memoryMisses = memoryMisses;
+            this.diskHits = diskHits;
+            this.diskMisses = diskMisses;
+            this.networkSuccesses = networkSuccesses;
+            this.networkFailures = networkFailures;
+        }
+        
+        @Override
+        public String toString() {
+            return "memory " + memoryHits + "/" + memoryMisses +
+                    ", disk " + diskHits + "/" + diskMisses +
+                    ", network " + networkSuccesses + " ok/" + networkFailures + " failed";
+        }
+    }
+    
+    public static CacheStats getCacheStats() {
+        return new CacheStats(memoryHits.get(), memoryMisses.get(), diskHits.get(), diskMisses.get(),
+                networkSuccesses.get(), networkFailures.get());
+    }
+    
+    /**
+     * The latest market, combining getCoins results with any paged load.
+     * Safe to read from any thread; each refresh publishes a new snapshot.
+     */
+    public static MarketSnapshot getMarketSnapshot() {
+        return market.get();
+    }
+    
+    private static MarketSnapshot publish(List<CoinModel> coins) {
+        return publish(coins, false);
+    }
+    
+    // Writers take turns so the leaderboards see every snapshot in order; readers of the snapshot never block.
+    // A partial update never replaces the snapshot, however long it is
+    private static MarketSnapshot publish(List<CoinModel> coins, boolean partial) {
+        synchronized (BOARDS_LOCK) {
+            MarketSnapshot previous = market.get();
+            MarketSnapshot next = partial ? previous.withRows(coins) : previous.mergedWith(coins);
+            if (next != previous) {
+                market.set(next);
+                gainers.apply(previous, next);
+                losers.apply(previous, next);
+                volume.apply(previous, next);
+                marketCapMovers.apply(previous, next);
+            }
+            return next;
+        }
+    }
+    
+    // One network request and everyone waiting on it; the request is cancelled once nobody is
+    private static final class SharedFetch {
+        // Set before the fetch is shared
+        FutureTask<List<CoinModel>> result;
+        // Guarded by LOCK
+        int waiters;
+        Call<?> call;
+        boolean abandoned;
+    }
+    
+    private static class CachedCoins {
+        final List<CoinModel> coins;
+        final long fetchedAt;
+        
+        CachedCoins(List<CoinModel> coins, long fetchedAt) {
+            this.coins = coins;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+    
+    /**
+     * Fetch coins, preferring cached data.
+     * A memory snapshot is returned as is, and refreshed in the background once it is older
+     * than FRESHNESS_WINDOW_MS. On a cold start the coin_cache table fills the snapshot; rows
+     * older than DISK_TTL_MS are only used if the network cannot be reached.
+     * Concurrent network fetches of the same query share one request.
+     * @return List of coins or empty list if no tier has data
      */
     public List<CoinModel> getCoins() {
+        return getCoins(null);
+    }
+    
+    /**
+     * {@link #getCoins()} on behalf of a screen's task. Once the task is cancelled this stops
+     * waiting and returns an empty list, and the network request is cancelled unless another
+     * caller still wants its result.
+     * @param task Task to follow, or null to always run to completion
+     */
+    public List<CoinModel> getCoins(TaskScope.Task task) {
+        long now = System.currentTimeMillis();
+        CachedCoins cached;
+        synchronized (LOCK) {
+            cached = recent.get(TOP_COINS_KEY);
+        }
+        
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            if (now - cached.fetchedAt >= FRESHNESS_WINDOW_MS) {
+                refreshInBackground();
+            }
+            return cached.coins;
+        }
+        memoryMisses.incrementAndGet();
+        
+        List<CoinModel> disk = loadFromDisk();
+        if (!disk.isEmpty()) {
+            diskHits.incrementAndGet();
+            long cachedAt = 0;
+            for (CoinModel coin : disk) {
+                cachedAt = Math.max(cachedAt, coin.getCachedAt());
+            }
+            remember(disk, cachedAt);
+            
+            if (now - cachedAt < DISK_TTL_MS) {
+                if (now - cachedAt >= FRESHNESS_WINDOW_MS) {
+                    refreshInBackground();
+                }
+                return disk;
+            }
+            // Too old to show without trying the network, but still better than nothing
+            List<CoinModel> fresh = fetchShared(coinGeckoApi, task);
+            return fresh.isEmpty() ? disk : fresh;
+        }
+        if (coinDao != null) {
+            diskMisses.incrementAndGet();
+        }
+        
+        if (task != null && task.isCancelled()) {
+            return new ArrayList<>();
+        }
+        List<CoinModel> coins = fetchShared(coinGeckoApi, task);
+        return coins.isEmpty() ? new ArrayList<>() : coins;
+    }
+    
+    /**
+     * Drop remembered results so the next call goes to the network
+     */
+    public static void invalidateCache() {
+        synchronized (LOCK) {
+            recent.clear();
+        }
+        synchronized (BOARDS_LOCK) {
+            market.set(MarketSnapshot.EMPTY);
+            gainers.clear();
+            losers.clear();
+            volume.clear();
+            marketCapMovers.clear();
+        }
+    }
+    
+    private List<CoinModel> loadFromDisk() {
+        if (coinDao == null) {
+            return Collections.emptyList();
+        }
+        try {
+            List<CoinModel> coins = coinDao.getTopByMarketCap(TOP_COINS_LIMIT);
+            return coins == null ? Collections.emptyList() : Collections.unmodifiableList(coins);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+    
+    private static void remember(List<CoinModel> coins, long fetchedAt) {
+        boolean newer = false;
+        synchronized (LOCK) {
+            CachedCoins current = recent.get(TOP_COINS_KEY);
+            if (current == null || current.fetchedAt < fetchedAt) {
+                recent.put(TOP_COINS_KEY, new CachedCoins(coins, fetchedAt));
+                newer = true;
+            }
+        }
+        if (newer) {
+            publish(coins);
+        }
+    }
+    
+    private void refreshInBackground() {
+        // At most one queued refresh; more triggers while it runs are no-ops
+        if (!refreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            AppExecutors.get().network().execute(() -> {
+                try {
+                    List<CoinModel> coins = fetchShared(backgroundApi, null);
+                    if (!coins.isEmpty()) {
+                        for (OnCoinsUpdatedListener listener : listeners) {
+                            try {
+                                listener.onCoinsUpdated(coins);
+                            } catch (RuntimeException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                    }
+                } finally {
+                    refreshQueued.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Network pool is backed up; the next read past the TTL tries again
+            refreshQueued.set(false);
+        }
+    }
+    
+    // Single-flight network fetch: the first caller runs it, concurrent callers wait on the same future
+    private List<CoinModel> fetchShared(CoinGeckoApi api, TaskScope.Task task) {
+        SharedFetch fetch;
+        boolean owner = false;
+        
+        synchronized (LOCK) {
+            fetch = inFlight.get(TOP_COINS_KEY);
+            if (fetch == null) {
+                SharedFetch created = new SharedFetch();
+                created.result = new FutureTask<>(() -> fetchTopCoins(api, created));
+                fetch = created;
+                inFlight.put(TOP_COINS_KEY, fetch);
+                owner = true;
+            }
+            fetch.waiters++;
+        }
+        
+        SharedFetch joined = fetch;
+        AtomicBoolean left = new AtomicBoolean();
+        Runnable leave = () -> {
+            if (left.compareAndSet(false, true)) {
+                leave(joined);
+            }
+        };
+        if (task != null) {
+            task.onCancel(leave);
+        }
+        Runnable joinedHook = onJoinedFetch;
+        if (!owner && joinedHook != null) {
+            joinedHook.run();
+        }
+        
+        List<CoinModel> coins;
+        try {
+            if (owner) {
+                fetch.result.run();
+            }
+            coins = await(fetch.result, task);
+        } finally {
+            if (task != null) {
+                task.removeOnCancel(leave);
+            }
+            leave.run();
+        }
+        
+        if (owner) {
+            synchronized (LOCK) {
+                // An abandoned fetch was already replaced, and its successor must stay
+                if (inFlight.get(TOP_COINS_KEY) == fetch) {
+                    inFlight.remove(TOP_COINS_KEY);
+                }
+            }
+            // Failures come back empty and are not cached, so the next call retries
+            if (!coins.isEmpty()) {
+                remember(coins, System.currentTimeMillis());
+                persist(coins);
+            }
+        }
+        return coins;
+    }
+    
+    // Waits for the shared result, giving up early if the caller's task is cancelled
+    private static List<CoinModel> await(FutureTask<List<CoinModel>> result, TaskScope.Task task) {
+        while (true) {
+            try {
+                return task == null ? result.get() : result.get(CANCEL_CHECK_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (task.isCancelled()) {
+                    return Collections.emptyList();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Collections.emptyList();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+                return Collections.emptyList();
+            }
+        }
+    }
+    
+    // The last caller to stop waiting on an unfinished fetch cancels its request
+    private static void leave(SharedFetch fetch) {
+        Call<?> call = null;
+        synchronized (LOCK) {
+            if (--fetch.waiters == 0 && !fetch.result.isDone()) {
+                fetch.abandoned = true;
+                call = fetch.call;
+                // Later callers start a fresh request instead of joining a cancelled one
+                if (inFlight.get(TOP_COINS_KEY) == fetch) {
+                    inFlight.remove(TOP_COINS_KEY);
+                }
+            }
+        }
+        if (call != null) {
+            call.cancel();
+        }
+    }
+    
+    private void persist(List<CoinModel> coins) {
+        if (coinDao == null) {
+            return;
+        }
         try {
-            Response<List<CoinModel>> response = coinGeckoApi.getTopCoins("usd", 30, "market_cap_desc").execute();
+            AppExecutors.get().diskWrite().execute(() -> {
+                try {
+                    coinDao.upsertAll(coins);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The memory cache still has these; only a cold start misses them
+            e.printStackTrace();
+        }
+    }
+    
+    private List<CoinModel> fetchTopCoins(CoinGeckoApi api, SharedFetch fetch) {
+        Call<List<CoinModel>> call = api.getTopCoins(VS_CURRENCY, TOP_COINS_LIMIT, ORDER);
+        synchronized (LOCK) {
+            if (fetch.abandoned) {
+                return Collections.emptyList();
+            }
+            fetch.call = call;
+        }
+        try {
+            Response<List<CoinModel>> response = call.execute();
             
             if (response.isSuccessful() && response.body() != null) {
-                return response.body();
+                networkSuccesses.incrementAndGet();
+                return Collections.unmodifiableList(new ArrayList<>(response.body()));
             } else {
                 // Log error and return empty list
+                networkFailures.incrementAndGet();
                 System.err.println("API Error: " + response.code() + " - " + response.message());
-                return new ArrayList<>();
+                return Collections.emptyList();
             }
         } catch (IOException e) {
+            if (call.isCanceled()) {
+                // Nobody is waiting any more; not a network failure
+                return Collections.emptyList();
+            }
+            networkFailures.incrementAndGet();
             e.printStackTrace();
             // Return empty list on network error
-            return new ArrayList<>();
+            return Collections.emptyList();
         }
     }
     
     /**
-     * Get top gainers (coins with positive 24h change)
-     * @param allCoins All available coins
-     * @return List of top gainers
+     * Start loading the top coins page by page, well beyond the 30 getCoins returns.
+     * Page 1 goes out at normal priority; the rest yield to foreground calls under the rate limit.
+     * Pages are written to coin_cache as they arrive when this repository has a disk tier,
+     * and merged into getMarketSnapshot() before the listener hears about them.
+     * @param coinCount How many coins to load, e.g. 1000
+     * @param listener Receives each page and the final result on a worker thread
+     * @return Handle to cancel the load
      */
-    public List<CoinModel> getTopGainersTab(List<CoinModel> allCoins) {
-        List<CoinModel> gainers = new ArrayList<>();
-        for (CoinModel coin : allCoins) {
-            if (coin.getPriceChangePercentage24h() > 0) {
-                gainers.add(coin);
+    public PagedMarketLoader.Load loadMarket(int coinCount, PagedMarketLoader.PageListener listener) {
+        return new PagedMarketLoader(coinGeckoApi, backgroundApi, coinDao).load(coinCount, new PagedMarketLoader.PageListener() {
+            @Override
+            public void onPageLoaded(int pagesLoaded, int pageCount, List<CoinModel> coinsSoFar) {
+                // Published first, so the listener already sees the pages in getMarketSnapshot()
+                publish(coinsSoFar);
+                listener.onPageLoaded(pagesLoaded, pageCount, coinsSoFar);
+            }
+            
+            @Override
+            public void onLoadFinished(List<CoinModel> coins, int failedPages) {
+                // Pages after a failed one never made it through onPageLoaded; they are
+                // merged in rather than replacing the rows the failed page would have refreshed
+                if (failedPages > 0) {
+                    publish(coins, true);
+                }
+                listener.onLoadFinished(coins, failedPages);
             }
+        });
+    }
+    
+    /** Rows shown on the gainers and losers tabs */
+    public static final int TOP_MOVERS_LIMIT = 10;
+    
+    /**
+     * Get top gainers (coins with positive 24h change) from the published market.
+     * Read from a leaderboard that is kept ranked as prices arrive, so this is O(k).
+     * @return Up to 10 coins, biggest gain first
+     */
+    public List<CoinModel> getTopGainersTab() {
+        return topOf(gainers, TOP_MOVERS_LIMIT);
+    }
+    
+    /**
+     * Get top losers (coins with negative 24h change) from the published market
+     * @return Up to 10 coins, biggest loss first
+     */
+    public List<CoinModel> getTopLosersTab() {
+        return topOf(losers, TOP_MOVERS_LIMIT);
+    }
+    
+    /**
+     * Get the most traded coins of the published market
+     * @param limit Maximum coins to return
+     * @return Coins by 24h volume, highest first
+     */
+    public List<CoinModel> getTopVolumeTab(int limit) {
+        return topOf(volume, limit);
+    }
+    
+    /**
+     * Get the coins whose market cap moved the most, up or down, over the last 24h
+     * @param limit Maximum coins to return
+     * @return Coins by absolute market cap change percentage, largest first
+     */
+    public List<CoinModel> getTopMarketCapMoversTab(int limit) {
+        return topOf(marketCapMovers, limit);
+    }
+    
+    private static List<CoinModel> topOf(Leaderboard board, int limit) {
+        synchronized (BOARDS_LOCK) {
+            return board.top(limit);
         }
-        // Sort by percentage gain (descending) and return top 10
-        gainers.sort((a, b) -> Double.compare(b.getPriceChangePercentage24h(), a.getPriceChangePercentage24h()));
-        return gainers.subList(0, Math.min(gainers.size(), 10));
     }
     
     /**
-     * Get top losers (coins with negative 24h change)
-     * @param allCoins All available coins
-     * @return List of top losers
+     * Get top gainers of any snapshot, e.g. the one a search index was built from,
+     * which the leaderboards may already have moved past
+     * @param market Market to pick from
+     * @return Up to 10 coins, biggest gain first
      */
-    public List<CoinModel> getTopLosersTab(List<CoinModel> allCoins) {
-        List<CoinModel> losers = new ArrayList<>();
-        for (CoinModel coin : allCoins) {
-            if (coin.getPriceChangePercentage24h() < 0) {
-                losers.add(coin);
-            }
+    public List<CoinModel> getTopGainersTab(MarketSnapshot market) {
+        return rows(market, TopK.largest(market.size(), TOP_MOVERS_LIMIT,
+                market::changePercentage24h, i -> market.changePercentage24h(i) > 0));
+    }
+    
+    /**
+     * Get top losers of any snapshot, e.g. the one a search index was built from
+     * @param market Market to pick from
+     * @return Up to 10 coins, biggest loss first
+     */
+    public List<CoinModel> getTopLosersTab(MarketSnapshot market) {
+        return rows(market, TopK.smallest(market.size(), TOP_MOVERS_LIMIT,
+                market::changePercentage24h, i -> market.changePercentage24h(i) < 0));
+    }
+    
+    private static List<CoinModel> rows(MarketSnapshot market, int[] indices) {
+        List<CoinModel> coins = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            coins.add(market.coin(i));
         }
-        // Sort by percentage loss (ascending) and return top 10
-        losers.sort((a, b) -> Double.compare(a.getPriceChangePercentage24h(), b.getPriceChangePercentage24h()));
-        return losers.subList(0, Math.min(losers.size(), 10));
+        return coins;
     }
     
     /**
-     * Get all coins (limited to top 10 for performance)
+     * Get all coins, in market-cap order
      * @param allCoins All available coins
-     * @return List of top coins
+     * @return List of all coins
      */
     public List<CoinModel> getAllCoinsTab(List<CoinModel> allCoins) {
-        return allCoins.subList(0, Math.min(allCoins.size(), 10));
+        return allCoins;
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.example.cryptoapplication.repository;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Coins ranked by one market column, kept up to date as snapshots are published.
+ * Only coins whose value or rank changed are moved in the tree, so a refresh that
+ * touches a handful of prices costs a handful of O(log n) updates, and reading the
+ * top k is O(k). Not thread safe; CoinRepositoryRetrofit updates and reads it under a lock.
+ */
+class Leaderboard {
+
+    interface Column {
+        double get(MarketSnapshot market, int i);
+    }
+
+    interface Filter {
+        boolean include(double value);
+    }
+
+    private static final class Entry {
+        final String id;
+        final double value;
+        // Position in the snapshot
+        final int rank;
+        // Not part of the ordering, so a fresh row with the same numbers is swapped in place
+        CoinModel coin;
+
+        Entry(String id, double value, int rank, CoinModel coin) {
+            this.id = id;
+            this.value = value;
+            this.rank = rank;
+            this.coin = coin;
+        }
+    }
+
+    private final Column column;
+    private final Filter filter;
+    private final TreeSet<Entry> ranked;
+    private final Map<String, Entry> byId = new HashMap<>();
+
+    /**
+     * @param column Value to rank by
+     * @param descending True to put the largest value first
+     * @param filter Values that belong on the board, e.g. only positive changes for gainers
+     */
+    Leaderboard(Column column, boolean descending, Filter filter) {
+        this.column = column;
+        this.filter = filter;
+        this.ranked = new TreeSet<>((a, b) -> {
+            int cmp = Double.compare(a.value, b.value);
+            if (cmp != 0) {
+                return descending ? -cmp : cmp;
+            }
+            // Ties keep snapshot order, which is market-cap order, then id so distinct coins never compare equal
+            cmp = Integer.compare(a.rank, b.rank);
+            return cmp != 0 ? cmp : a.id.compareTo(b.id);
+        });
+    }
+
+    /**
+     * Bring the board from one published snapshot to the next
+     */
+    void apply(MarketSnapshot previous, MarketSnapshot next) {
+        for (int i = 0; i < next.size(); i++) {
+            update(next.id(i), column.get(next, i), i, next.coin(i));
+        }
+        for (int j = 0; j < previous.size(); j++) {
+            if (next.indexOf(previous.id(j)) < 0) {
+                remove(previous.id(j));
+            }
+        }
+    }
+
+    private void update(String id, double value, int rank, CoinModel coin) {
+        Entry current = byId.get(id);
+        if (current != null && Double.compare(current.value, value) == 0 && current.rank == rank) {
+            current.coin = coin;
+            return;
+        }
+        if (current != null) {
+            ranked.remove(current);
+            byId.remove(id);
+        }
+        if (filter == null || filter.include(value)) {
+            Entry entry = new Entry(id, value, rank, coin);
+            ranked.add(entry);
+            byId.put(id, entry);
+        }
+    }
+
+    private void remove(String id) {
+        Entry current = byId.remove(id);
+        if (current != null) {
+            ranked.remove(current);
+        }
+    }
+
+    /**
+     * @return Up to limit coins in board order
+     */
+    List<CoinModel> top(int limit) {
+        List<CoinModel> coins = new ArrayList<>(Math.min(limit, ranked.size()));
+        Iterator<Entry> iterator = ranked.iterator();
+        while (coins.size() < limit && iterator.hasNext()) {
+            coins.add(iterator.next().coin);
+        }
+        return coins;
+    }
+
+    int size() {
+        return ranked.size();
+    }
+
+    void clear() {
+        ranked.clear();
+        byId.clear();
+    }
+}
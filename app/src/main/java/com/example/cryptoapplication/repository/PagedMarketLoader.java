@@ -0,0 +1,254 @@
+package com.example.cryptoapplication.repository;
+
+import com.example.cryptoapplication.database.dao.CoinDao;
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.network.CoinGeckoApi;
+import com.example.cryptoapplication.network.CoinModelTypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Loads the top N coins from coins/markets in pages of up to 250, several pages at a time.
+ * Each page is persisted to coin_cache and handed to the listener as soon as it arrives,
+ * so the first page can be shown long before the last one lands. Request pacing is left
+ * to the rate limiter in RetrofitClient, which every page call goes through.
+ * Pages are streamed: rows are parsed while the body is still downloading and go straight
+ * into the page, without the body being buffered or passed through a reflective converter.
+ */
+public class PagedMarketLoader {
+
+    /** CoinGecko's maximum per_page */
+    public static final int MAX_PER_PAGE = 250;
+    public static final int PARALLEL_PAGES = 3;
+
+    private static final String VS_CURRENCY = "usd";
+    private static final String ORDER = "market_cap_desc";
+
+    private static final ExecutorService pageExecutor = Executors.newFixedThreadPool(PARALLEL_PAGES, runnable -> {
+        Thread thread = new Thread(runnable, "market-page");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Progress callbacks, invoked on a worker thread; keep them short, since pages are
+     * delivered one at a time to keep progress in order
+     */
+    public interface PageListener {
+        /**
+         * Called whenever the unbroken run of pages starting at page 1 grows, so what is
+         * shown is always the top of the market and never has holes in the ranking
+         * @param pagesLoaded Pages in that run
+         * @param pageCount Total pages in this load
+         * @param coinsSoFar The coins on those pages, in market-cap rank order
+         */
+        void onPageLoaded(int pagesLoaded, int pageCount, List<CoinModel> coinsSoFar);
+
+        /**
+         * @param coins Every coin received, in market-cap rank order, including pages after a failed one
+         * @param failedPages Pages that could not be fetched
+         */
+        void onLoadFinished(List<CoinModel> coins, int failedPages);
+    }
+
+    /**
+     * Handle for a running load
+     */
+    public static class Load {
+        private final List<Future<?>> pages = new ArrayList<>();
+        // Requests in flight, guarded by pages
+        private final List<Call<?>> calls = new ArrayList<>();
+        private volatile boolean cancelled;
+
+        /**
+         * Stop outstanding pages and abort their HTTP calls; no further callbacks are made
+         */
+        public void cancel() {
+            cancelled = true;
+            synchronized (pages) {
+                for (Call<?> call : calls) {
+                    call.cancel();
+                }
+                for (Future<?> page : pages) {
+                    page.cancel(true);
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // False if the load was cancelled first, in which case the call must not be made
+        private boolean track(Call<?> call) {
+            synchronized (pages) {
+                if (cancelled) {
+                    return false;
+                }
+                calls.add(call);
+                return true;
+            }
+        }
+
+        private void untrack(Call<?> call) {
+            synchronized (pages) {
+                calls.remove(call);
+            }
+        }
+    }
+
+    private final CoinGeckoApi firstPageApi;
+    private final CoinGeckoApi otherPagesApi;
+    private final CoinDao coinDao;
+    private final CoinModelTypeAdapter rowAdapter;
+
+    /**
+     * @param firstPageApi API used for page 1, which the user is waiting for
+     * @param otherPagesApi API used for the remaining pages, typically background priority
+     * @param coinDao Where pages are persisted, or null to skip persistence
+     */
+    public PagedMarketLoader(CoinGeckoApi firstPageApi, CoinGeckoApi otherPagesApi, CoinDao coinDao) {
+        this.firstPageApi = firstPageApi;
+        this.otherPagesApi = otherPagesApi;
+        this.coinDao = coinDao;
+        // Pages that are not persisted skip the fields only coin_cache keeps
+        this.rowAdapter = new CoinModelTypeAdapter(coinDao != null);
+    }
+
+    /**
+     * Start loading the top coins by market cap
+     * @param coinCount How many coins to load, e.g. 1000
+     * @param listener Receives each page and the final result
+     * @return Handle to cancel the load
+     */
+    public Load load(int coinCount, PageListener listener) {
+        return load(coinCount, MAX_PER_PAGE, listener);
+    }
+
+    // Tests page with small page sizes
+    @SuppressWarnings("unchecked")
+    Load load(int coinCount, int pageSize, PageListener listener) {
+        int perPage = Math.max(1, Math.min(pageSize, coinCount));
+        int pageCount = (coinCount + perPage - 1) / perPage;
+        List<CoinModel>[] received = new List[pageCount];
+        AtomicInteger remaining = new AtomicInteger(pageCount);
+        AtomicInteger failed = new AtomicInteger();
+        int[] delivered = new int[1];
+        Load load = new Load();
+
+        // Submitted in page order, so page 1 is first in line for a worker and a rate-limit token
+        for (int page = 1; page <= pageCount; page++) {
+            final int pageNumber = page;
+            Future<?> future = pageExecutor.submit(() -> {
+                try {
+                    List<CoinModel> coins = fetchPage(pageNumber == 1 ? firstPageApi : otherPagesApi, pageNumber, perPage, load);
+                    if (load.isCancelled()) {
+                        return;
+                    }
+                    if (coins == null) {
+                        failed.incrementAndGet();
+                        return;
+                    }
+                    persist(coins);
+
+                    synchronized (received) {
+                        received[pageNumber - 1] = coins;
+                        int prefix = delivered[0];
+                        while (prefix < pageCount && received[prefix] != null) {
+                            prefix++;
+                        }
+                        if (prefix > delivered[0] && !load.isCancelled()) {
+                            delivered[0] = prefix;
+                            listener.onPageLoaded(prefix, pageCount, flatten(received, prefix, coinCount));
+                        }
+                    }
+                } finally {
+                    if (remaining.decrementAndGet() == 0 && !load.isCancelled()) {
+                        List<CoinModel> all;
+                        synchronized (received) {
+                            all = flatten(received, pageCount, coinCount);
+                        }
+                        listener.onLoadFinished(all, failed.get());
+                    }
+                }
+            });
+            synchronized (load.pages) {
+                load.pages.add(future);
+            }
+        }
+        return load;
+    }
+
+    private List<CoinModel> fetchPage(CoinGeckoApi api, int page, int perPage, Load load) {
+        Call<ResponseBody> call = null;
+        try {
+            call = api.streamCoinMarkets(VS_CURRENCY, ORDER, perPage, page, false);
+            if (!load.track(call)) {
+                return null;
+            }
+            Response<ResponseBody> response = call.execute();
+            try (ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody()) {
+                if (response.isSuccessful() && body != null) {
+                    List<CoinModel> coins = new ArrayList<>(perPage);
+                    rowAdapter.readArray(new JsonReader(body.charStream()), coins::add);
+                    return coins;
+                }
+            }
+            System.err.println("Market page " + page + " failed: " + response.code() + " - " + response.message());
+        } catch (IOException | RuntimeException e) {
+            // RuntimeException covers a body that is not a JSON array of coins
+            if (!load.isCancelled()) {
+                System.err.println("Market page " + page + " failed: " + e);
+            }
+        } finally {
+            load.untrack(call);
+        }
+        return null;
+    }
+
+    private void persist(List<CoinModel> coins) {
+        if (coinDao == null) {
+            return;
+        }
+        try {
+            coinDao.upsertAll(coins);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // The first pageCount pages in rank order; ranks can shift between page requests, so a coin is kept only once
+    private static List<CoinModel> flatten(List<CoinModel>[] pages, int pageCount, int limit) {
+        List<CoinModel> coins = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < pageCount; i++) {
+            List<CoinModel> page = pages[i];
+            if (page == null) {
+                continue;
+            }
+            for (CoinModel coin : page) {
+                if (coins.size() >= limit) {
+                    return Collections.unmodifiableList(coins);
+                }
+                if (coin != null && seen.add(coin.getId())) {
+                    coins.add(coin);
+                }
+            }
+        }
+        return Collections.unmodifiableList(coins);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.cryptoapplication.service;
+
+import com.example.cryptoapplication.models.MarketSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory search over coin names and symbols, built once per market snapshot.
+ * A trie over symbols, names and the words in names answers prefix queries; trigram
+ * postings narrow substring queries down to a few candidates before they are checked.
+ * Results come in three groups (exact symbol, prefix, substring), each ordered by market cap.
+ * Immutable after build, so it can be queried from the main thread while the next one is built.
+ */
+public final class CoinSearchIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    public static final CoinSearchIndex EMPTY = build(MarketSnapshot.EMPTY);
+
+    private final MarketSnapshot market;
+    // Snapshot index of each row, ordered by market cap; postings hold positions in this array
+    private final int[] rowAt;
+    private final TrieNode root = new TrieNode();
+    private final Map<Long, int[]> trigrams;
+    private final Map<String, int[]> symbols;
+
+    private CoinSearchIndex(MarketSnapshot market) {
+        this.market = market;
+        int n = market.size();
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Double.compare(market.marketCap(b), market.marketCap(a));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        rowAt = new int[n];
+        for (int p = 0; p < n; p++) {
+            rowAt[p] = order[p];
+        }
+
+        // Positions are added in increasing order, so every posting list comes out sorted
+        Map<Long, IntList> trigramLists = new HashMap<>();
+        Map<String, IntList> symbolLists = new HashMap<>();
+        for (int p = 0; p < n; p++) {
+            String symbol = market.lowerSymbol(rowAt[p]);
+            String name = market.lowerName(rowAt[p]);
+
+            insert(symbol, p);
+            insert(name, p);
+            for (String word : words(name)) {
+                insert(word, p);
+            }
+            addTrigrams(trigramLists, symbol, p);
+            addTrigrams(trigramLists, name, p);
+            if (!symbol.isEmpty()) {
+                symbolLists.computeIfAbsent(symbol, key -> new IntList()).add(p);
+            }
+        }
+        root.freeze();
+
+        trigrams = new HashMap<>(trigramLists.size() * 2);
+        for (Map.Entry<Long, IntList> entry : trigramLists.entrySet()) {
+            trigrams.put(entry.getKey(), entry.getValue().toArray());
+        }
+        symbols = new HashMap<>(symbolLists.size() * 2);
+        for (Map.Entry<String, IntList> entry : symbolLists.entrySet()) {
+            symbols.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Index every coin in the snapshot
+     */
+    public static CoinSearchIndex build(MarketSnapshot market) {
+        return new CoinSearchIndex(market != null ? market : MarketSnapshot.EMPTY);
+    }
+
+    /**
+     * @return The snapshot the returned indices refer to
+     */
+    public MarketSnapshot getMarket() {
+        return market;
+    }
+
+    /**
+     * Find coins whose symbol or name matches the query, case-insensitively
+     * @param query Text typed by the user; blank matches every coin
+     * @param limit Maximum results
+     * @return Snapshot indices: exact symbol matches, then prefix matches, then substring matches
+     */
+    public int[] search(String query, int limit) {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        int n = rowAt.length;
+        if (limit <= 0 || n == 0) {
+            return NO_ROWS;
+        }
+
+        Collector out = new Collector(n, limit);
+        if (q.isEmpty()) {
+            for (int p = 0; p < n && !out.isFull(); p++) {
+                out.add(p);
+            }
+            return out.toRows(rowAt);
+        }
+
+        out.addAll(symbols.getOrDefault(q, NO_ROWS));
+
+        TrieNode node = root.find(q);
+        if (node != null) {
+            out.addAll(node.positions);
+        }
+
+        if (!out.isFull()) {
+            if (q.length() >= 3) {
+                for (int p : trigramCandidates(q)) {
+                    if (out.isFull()) {
+                        break;
+                    }
+                    if (contains(p, q)) {
+                        out.add(p);
+                    }
+                }
+            } else {
+                // One or two characters have no trigram; a scan of the pre-lowered columns is still cheap
+                for (int p = 0; p < n && !out.isFull(); p++) {
+                    if (contains(p, q)) {
+                        out.add(p);
+                    }
+                }
+            }
+        }
+        return out.toRows(rowAt);
+    }
+
+    private boolean contains(int p, String q) {
+        int row = rowAt[p];
+        return market.lowerSymbol(row).contains(q) || market.lowerName(row).contains(q);
+    }
+
+    // Positions holding every trigram of q, i.e. the only ones that can contain it
+    private int[] trigramCandidates(String q) {
+        int count = q.length() - 2;
+        int[][] lists = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int[] posting = trigrams.get(trigram(q, i));
+            if (posting == null) {
+                return NO_ROWS;
+            }
+            lists[i] = posting;
+        }
+        // Walk the shortest list and probe the others
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        IntList candidates = new IntList();
+        for (int p : lists[0]) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.length && inAll; i++) {
+                inAll = Arrays.binarySearch(lists[i], p) >= 0;
+            }
+            if (inAll) {
+                candidates.add(p);
+            }
+        }
+        return candidates.toArray();
+    }
+
+    private void insert(String term, int p) {
+        if (!term.isEmpty()) {
+            root.insert(term, p);
+        }
+    }
+
+    private static void addTrigrams(Map<Long, IntList> lists, String text, int p) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            lists.computeIfAbsent(trigram(text, i), key -> new IntList()).addIfLast(p);
+        }
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // The name from each word on, so "shiba inu" is found by "inu"; a word at 0 is the name itself
+    private static List<String> words(String name) {
+        List<String> words = new ArrayList<>();
+        for (int i = 1; i < name.length(); i++) {
+            if (Character.isLetterOrDigit(name.charAt(i)) && !Character.isLetterOrDigit(name.charAt(i - 1))) {
+                words.add(name.substring(i));
+            }
+        }
+        return words;
+    }
+
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private IntList building = new IntList();
+        // Every position whose terms pass through this node, in market-cap order
+        int[] positions = NO_ROWS;
+
+        void insert(String term, int p) {
+            TrieNode node = this;
+            for (int i = 0; i < term.length(); i++) {
+                node = node.child(term.charAt(i), true);
+                node.building.addIfLast(p);
+            }
+        }
+
+        TrieNode find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i), false);
+            }
+            return node;
+        }
+
+        private TrieNode child(char c, boolean create) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            TrieNode node = new TrieNode();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+
+        void freeze() {
+            positions = building.toArray();
+            building = null;
+            for (TrieNode child : children) {
+                child.freeze();
+            }
+        }
+    }
+
+    // Adds each position once, in the order given, up to the limit
+    private static final class Collector {
+        private final boolean[] taken;
+        private final int[] positions;
+        private int size;
+
+        Collector(int n, int limit) {
+            taken = new boolean[n];
+            positions = new int[Math.min(n, limit)];
+        }
+
+        boolean isFull() {
+            return size == positions.length;
+        }
+
+        void add(int p) {
+            if (!isFull() && !taken[p]) {
+                taken[p] = true;
+                positions[size++] = p;
+            }
+        }
+
+        void addAll(int[] ps) {
+            for (int i = 0; i < ps.length && !isFull(); i++) {
+                add(ps[i]);
+            }
+        }
+
+        int[] toRows(int[] rowAt) {
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = rowAt[positions[i]];
+            }
+            return rows;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // A row can reach the same key twice, e.g. through two terms ("btc" and "bitcoin" share "b")
+        void addIfLast(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cryptoapplication.service;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.ConsolidatedAsset;
+import com.example.cryptoapplication.models.MarketSnapshot;
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values a user's holdings against a snapshot of market prices.
+ * Each holding is one index lookup into the snapshot's price columns, so valuing n holdings costs O(n).
+ * The 24h change is accumulated in the same pass from the snapshot's own 24h fields.
+ */
+public class PortfolioValuationService {
+
+    /**
+     * Result of a valuation: portfolio total, its 24h change, plus the value of each held coin
+     */
+    public static class Valuation {
+        private final long totalValueUnits;
+        private final long change24hUnits;
+        private final Map<String, Long> coinValueUnits;
+
+        Valuation(long totalValueUnits, long change24hUnits, Map<String, Long> coinValueUnits) {
+            this.totalValueUnits = totalValueUnits;
+            this.change24hUnits = change24hUnits;
+            this.coinValueUnits = Collections.unmodifiableMap(coinValueUnits);
+        }
+
+        public long getTotalValueUnits() { return totalValueUnits; }
+        public double getTotalValue() { return FixedPoint.toFiat(totalValueUnits); }
+
+        /**
+         * @return How much the current holdings gained (or lost) in value over the last 24h, in fixed-point fiat units
+         */
+        public long getChange24hUnits() { return change24hUnits; }
+        public double getChange24h() { return FixedPoint.toFiat(change24hUnits); }
+
+        /**
+         * @return The 24h change relative to the value 24h ago, in percent
+         */
+        public double getChangePercentage24h() {
+            long previous = totalValueUnits - change24hUnits;
+            return previous > 0 ? (double) change24hUnits * 100.0 / previous : 0.0;
+        }
+
+        /**
+         * @return Value per coin ID in fixed-point fiat units, in holdings order
+         */
+        public Map<String, Long> getCoinValueUnits() { return coinValueUnits; }
+    }
+
+    /**
+     * Value holdings at the given prices in a single pass.
+     * Coins missing from the snapshot are valued at the asset's own price (its average cost
+     * when it came straight from the holdings table).
+     * @param holdings Held coins with quantity set
+     * @param prices Latest market data
+     * @return Total and per-coin value
+     */
+    public Valuation value(List<ConsolidatedAsset> holdings, List<CoinModel> prices) {
+        return valueAt(holdings, MarketSnapshot.of(prices));
+    }
+
+    /**
+     * Value holdings against a market snapshot, e.g. the one already shown on the home screen
+     * @param holdings Held coins with quantity set
+     * @param market Latest market snapshot, may be null
+     * @return Total and per-coin value
+     */
+    public Valuation valueAt(List<ConsolidatedAsset> holdings, MarketSnapshot market) {
+        if (market == null) {
+            market = MarketSnapshot.EMPTY;
+        }
+
+        long total = 0;
+        long change = 0;
+        Map<String, Long> coinValues = new LinkedHashMap<>();
+        if (holdings != null) {
+            for (ConsolidatedAsset asset : holdings) {
+                int i = market.indexOf(asset.getCoinId());
+                long priceUnits = i >= 0
+                        ? FixedPoint.fromFiat(market.price(i))
+                        : fallbackPriceUnits(asset);
+                long value = FixedPoint.value(asset.getTotalQuantityUnits(), priceUnits);
+                coinValues.put(asset.getCoinId(), value);
+                total = Math.addExact(total, value);
+                if (i >= 0) {
+                    // Unpriced coins have no market movement to report
+                    long priceChange = priceChange24hUnits(market.price(i), market.priceChange24h(i), market.changePercentage24h(i));
+                    change = Math.addExact(change, FixedPoint.value(asset.getTotalQuantityUnits(), priceChange));
+                }
+            }
+        }
+        return new Valuation(total, change, coinValues);
+    }
+
+    /**
+     * Absolute 24h price move of one coin. Uses price_change_24h when the API sent it,
+     * otherwise derives it from the percentage: price - price / (1 + pct / 100).
+     */
+    static long priceChange24hUnits(double price, double priceChange24h, double percentage) {
+        if (priceChange24h != 0.0) {
+            return FixedPoint.fromFiat(priceChange24h);
+        }
+        if (percentage == 0.0 || percentage <= -100.0) {
+            return 0L;
+        }
+        return FixedPoint.fromFiat(price - price / (1.0 + percentage / 100.0));
+    }
+
+    private static long fallbackPriceUnits(ConsolidatedAsset asset) {
+        if (asset.getCurrentPriceUnits() > 0 || asset.getTotalQuantityUnits() <= 0) {
+            return asset.getCurrentPriceUnits();
+        }
+        return FixedPoint.proportion(asset.getCostBasisUnits(), FixedPoint.QUANTITY_SCALE, asset.getTotalQuantityUnits());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.cryptoapplication.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a search off the main thread as the user types, keeping only the latest query alive.
+ * Each query waits out a short debounce; a newer one cancels it before it starts, or flags it
+ * through {@link Cancellation} if it is already running. Results are re-checked on the result
+ * executor, so one that lost the race while queued is dropped instead of shown.
+ * @param <R> Result of one search
+ */
+public final class SearchPipeline<R> {
+
+    public interface Search<R> {
+        /**
+         * Runs on the pipeline thread
+         * @return The result to deliver, or null to deliver nothing
+         */
+        R run(String query, Cancellation cancellation);
+    }
+
+    public interface Cancellation {
+        /**
+         * @return True once a newer query (or cancel) has made this search obsolete
+         */
+        boolean isCancelled();
+    }
+
+    public interface Listener<R> {
+        void onResult(String query, R result);
+    }
+
+    private final Search<R> search;
+    private final Listener<R> listener;
+    private final Executor resultExecutor;
+    private final long debounceMs;
+    private final ScheduledExecutorService worker;
+    // Bumped by every query and cancel; a search only counts while it holds the current value
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param resultExecutor Where results are delivered, e.g. the main thread's Handler::post
+     * @param debounceMs Quiet time after a keystroke before the search starts
+     */
+    public SearchPipeline(Search<R> search, Listener<R> listener, Executor resultExecutor, long debounceMs) {
+        this.search = search;
+        this.listener = listener;
+        this.resultExecutor = resultExecutor;
+        this.debounceMs = debounceMs;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "coin-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Search once typing pauses, superseding any earlier query
+     */
+    public void submit(String query) {
+        schedule(query, debounceMs);
+    }
+
+    /**
+     * Search right away, e.g. on submit or when the data under an active query changes
+     */
+    public void submitNow(String query) {
+        schedule(query, 0);
+    }
+
+    /**
+     * Drop the pending or running search without starting another
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private synchronized void schedule(String query, long delayMs) {
+        cancel();
+        if (worker.isShutdown()) {
+            return;
+        }
+        long ticket = generation.get();
+        pending = worker.schedule(() -> run(query, ticket), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(String query, long ticket) {
+        Cancellation cancellation = () -> generation.get() != ticket;
+        if (cancellation.isCancelled()) {
+            return;
+        }
+
+        R result;
+        try {
+            result = search.run(query, cancellation);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (result == null || cancellation.isCancelled()) {
+            return;
+        }
+
+        resultExecutor.execute(() -> {
+            // A newer query may have arrived while this result waited in the queue
+            if (!cancellation.isCancelled()) {
+                listener.onResult(query, result);
+            }
+        });
+    }
+}
@@ -13,9 +13,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.cryptoapplication.R;
 import com.example.cryptoapplication.service.AuthService;
 import com.example.cryptoapplication.ui.home.HomeActivity;
+import com.example.cryptoapplication.utils.AppExecutors;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import com.example.cryptoapplication.service.AuthResult;
 
 public class LoginActivity extends AppCompatActivity {
@@ -24,7 +23,6 @@ public class LoginActivity extends AppCompatActivity {
     EditText emailEditText, passwordEditText;
     TextView createOneText;
     AuthService authService;
-    private ExecutorService executorService;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,7 +31,6 @@ public class LoginActivity extends AppCompatActivity {
 
         // Initialize AuthService
         authService = new AuthService(this);
-        executorService = Executors.newSingleThreadExecutor();
 
         loginButton = findViewById(R.id.loginButton);
         emailEditText = findViewById(R.id.emailEditText);
@@ -68,8 +65,8 @@ public class LoginActivity extends AppCompatActivity {
                 return;
             }
 
-            // Attempt login using AuthService in the background
-            executorService.execute(() -> {
+            // Attempt login using AuthService on the shared database writer, since it saves the session
+            AppExecutors.get().diskWrite().execute(() -> {
                 AuthResult authResult = authService.login(email, password);
                 runOnUiThread(() -> {
                     if (authResult == null) {
@@ -96,12 +93,4 @@ public class LoginActivity extends AppCompatActivity {
             });
         });
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-    }
 }
@@ -14,9 +14,7 @@ import com.example.cryptoapplication.R;
 import com.example.cryptoapplication.service.AuthService;
 import com.example.cryptoapplication.service.AuthResult;
 import com.example.cryptoapplication.ui.home.HomeActivity;
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.example.cryptoapplication.utils.AppExecutors;
 
 public class RegisterActivity extends AppCompatActivity {
 
@@ -24,7 +22,6 @@ public class RegisterActivity extends AppCompatActivity {
     LinearLayout registerButton;
     TextView loginText;
     AuthService authService;
-    private ExecutorService executorService;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,7 +30,6 @@ public class RegisterActivity extends AppCompatActivity {
 
         // Initialize AuthService
         authService = new AuthService(this);
-        executorService = Executors.newSingleThreadExecutor();
 
         usernameEditText = findViewById(R.id.userNameEditText);
         emailEditText = findViewById(R.id.emailEditText);
@@ -75,8 +71,8 @@ public class RegisterActivity extends AppCompatActivity {
                 return;
             }
 
-            // Attempt registration using AuthService in the background
-            executorService.execute(() -> {
+            // Attempt registration using AuthService on the shared database writer, since it inserts the user
+            AppExecutors.get().diskWrite().execute(() -> {
                 AuthResult authResult = authService.register(username, email, password);
                 runOnUiThread(() -> {
                     if (authResult == null) {
@@ -103,12 +99,4 @@ public class RegisterActivity extends AppCompatActivity {
             });
         });
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-    }
 }
@@ -1,8 +1,6 @@
 package com.example.cryptoapplication.ui.detail;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.View;
@@ -16,19 +14,23 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
 import com.example.cryptoapplication.R;
 import com.example.cryptoapplication.database.SimpleDatabaseService;
 import com.example.cryptoapplication.models.PortfolioItem;
 import com.example.cryptoapplication.models.User;
 import com.example.cryptoapplication.ui.detail.adapter.PriceHistoryAdapter;
+import com.example.cryptoapplication.utils.AppExecutors;
+import com.example.cryptoapplication.utils.ChangeColors;
+import com.example.cryptoapplication.utils.CoinIcons;
+import com.example.cryptoapplication.utils.PriceFormatter;
+import com.example.cryptoapplication.utils.TaskScope;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CoinDetailActivity extends AppCompatActivity {
 
@@ -44,8 +46,11 @@ public class CoinDetailActivity extends AppCompatActivity {
 
     // Data
     private SimpleDatabaseService database;
-    private ExecutorService executor;
-    private Handler mainHandler;
+    private AppExecutors executors;
+    // Work owned by this screen; cancelled, and its results dropped, once it is destroyed
+    private TaskScope tasks;
+    // A trade reloads holdings; a newer load replaces one still queued
+    private TaskScope.Task holdingsTask;
     private PriceHistoryAdapter priceHistoryAdapter;
 
     // Coin Data
@@ -57,6 +62,14 @@ public class CoinDetailActivity extends AppCompatActivity {
 
     private final DecimalFormat priceFormat = new DecimalFormat("#,##0.00");
     private final DecimalFormat cryptoFormat = new DecimalFormat("#,##0.########");
+    // Reused for text that is set repeatedly; one per TextView since each keeps its buffer
+    private final PriceFormatter priceText = new PriceFormatter();
+    private final PriceFormatter priceUsdText = new PriceFormatter();
+    private final PriceFormatter changeText = new PriceFormatter();
+    private final PriceFormatter userQuantityText = new PriceFormatter();
+    private final PriceFormatter userValueText = new PriceFormatter();
+    private final PriceFormatter usdAmountText = new PriceFormatter();
+    private ChangeColors changeColors;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -65,8 +78,8 @@ public class CoinDetailActivity extends AppCompatActivity {
 
         // Initialize
         database = SimpleDatabaseService.getInstance(this);
-        executor = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainLooper());
+        executors = AppExecutors.get();
+        tasks = TaskScope.of(this);
 
         // Get coin data from intent
         getCoinDataFromIntent();
@@ -114,21 +127,24 @@ public class CoinDetailActivity extends AppCompatActivity {
         // Set coin information
         tvCoinName.setText(coinName != null ? coinName : "Unknown");
         tvCoinSymbol.setText(coinSymbol != null ? coinSymbol.toUpperCase() : "");
-        tvCoinPrice.setText("$" + priceFormat.format(coinPrice));
-        tvCoinPriceUSD.setText("$" + priceFormat.format(coinPrice));
+        priceText.reset().price(coinPrice);
+        tvCoinPrice.setText(priceText.chars(), 0, priceText.length());
+        priceUsdText.reset().price(coinPrice);
+        tvCoinPriceUSD.setText(priceUsdText.chars(), 0, priceUsdText.length());
 
         // Set price change with color
-        String changeText = (coinChange24h >= 0 ? "+" : "") + String.format("%.2f%%", coinChange24h);
-        tvCoinChange.setText(changeText);
-        int changeColor = coinChange24h >= 0 ? 
-            ContextCompat.getColor(this, R.color.green_profit) : 
-            ContextCompat.getColor(this, R.color.red_loss);
-        tvCoinChange.setTextColor(changeColor);
+        changeColors = new ChangeColors(this);
+        changeText.reset().percent(coinChange24h);
+        tvCoinChange.setText(changeText.chars(), 0, changeText.length());
+        tvCoinChange.setTextColor(changeColors.forChange(coinChange24h));
 
         // Load coin image
         if (coinImage != null && !coinImage.isEmpty()) {
-            Glide.with(this)
-                    .load(coinImage)
+            // The list row's icon is usually still in memory and shows until the larger one decodes
+            RequestManager glide = Glide.with(this);
+            int size = getResources().getDimensionPixelSize(R.dimen.coin_detail_icon_size);
+            CoinIcons.request(glide, coinId, coinImage, size)
+                    .thumbnail(CoinIcons.request(glide, coinId, coinImage, CoinIcons.listIconSize(this)))
                     .placeholder(R.drawable.placeholder_foreground)
                     .error(R.drawable.error_placeholder_foreground)
                     .into(ivCoinImage);
@@ -180,23 +196,27 @@ public class CoinDetailActivity extends AppCompatActivity {
 
     // SIMPLE HOLDINGS CALCULATION
     private void loadUserHoldings() {
-        executor.execute(() -> {
-            userHoldings = 0.0;
-            
-            if (database.isUserLoggedIn()) {
-                userHoldings = database.calculateUserHoldings(coinId);
-            }
+        if (holdingsTask != null) {
+            holdingsTask.cancel();
+        }
+        holdingsTask = tasks.launch(executors.diskRead(), task -> {
+            double holdings = database.isUserLoggedIn() ? database.calculateUserHoldings(coinId) : 0.0;
 
-            mainHandler.post(() -> updateUserHoldingsUI());
+            task.post(() -> {
+                userHoldings = holdings;
+                updateUserHoldingsUI();
+            });
         });
     }
 
     private void updateUserHoldingsUI() {
         if (userHoldings > 0) {
             cardUserHoldings.setVisibility(View.VISIBLE);
-            tvUserQuantity.setText(cryptoFormat.format(userHoldings) + " " + coinSymbol);
+            userQuantityText.reset().quantity(userHoldings, 8).append(' ').append(coinSymbol);
+            tvUserQuantity.setText(userQuantityText.chars(), 0, userQuantityText.length());
             double value = userHoldings * coinPrice;
-            tvUserValue.setText("$" + priceFormat.format(value));
+            userValueText.reset().usd(value);
+            tvUserValue.setText(userValueText.chars(), 0, userValueText.length());
         } else {
             cardUserHoldings.setVisibility(View.GONE);
         }
@@ -255,7 +275,8 @@ public class CoinDetailActivity extends AppCompatActivity {
             if (!amountText.isEmpty()) {
                 double amount = Double.parseDouble(amountText);
                 double usdValue = amount * coinPrice;
-                tvUSDAmount.setText("$" + priceFormat.format(usdValue));
+                usdAmountText.reset().usd(usdValue);
+                tvUSDAmount.setText(usdAmountText.chars(), 0, usdAmountText.length());
             } else {
                 tvUSDAmount.setText("$0.00");
             }
@@ -338,10 +359,11 @@ public class CoinDetailActivity extends AppCompatActivity {
         }
     }
 
+    // On the writer thread like the toggles, so a status read never lands after a later toggle
     private void checkFavoriteStatus() {
-        executor.execute(() -> {
+        tasks.launch(executors.diskWrite(), task -> {
             boolean favorite = database.isCoinInFavorites(coinId);
-            mainHandler.post(() -> {
+            task.post(() -> {
                 isFavorite = favorite;
                 updateFavoriteIcon();
             });
@@ -354,19 +376,20 @@ public class CoinDetailActivity extends AppCompatActivity {
             return;
         }
 
-        executor.execute(() -> {
-            boolean success;
-            if (isFavorite) {
-                success = database.removeCoinFromFavorites(coinId);
-            } else {
-                success = database.addCoinToFavorites(coinId);
-            }
+        // Decided here from what the screen shows; isFavorite is only touched on the main thread.
+        // On the writer thread, so back-to-back taps apply in order
+        boolean favorite = !isFavorite;
+        executors.diskWrite().execute(() -> {
+            boolean success = favorite
+                    ? database.addCoinToFavorites(coinId)
+                    : database.removeCoinFromFavorites(coinId);
 
             if (success) {
-                isFavorite = !isFavorite;
-                mainHandler.post(() -> {
+                // The write itself always finishes; only the feedback depends on the screen
+                tasks.post(() -> {
+                    isFavorite = favorite;
                     updateFavoriteIcon();
-                    String message = isFavorite ? "Added to favorites" : "Removed from favorites";
+                    String message = favorite ? "Added to favorites" : "Removed from favorites";
                     Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
                 });
             }
@@ -392,12 +415,4 @@ public class CoinDetailActivity extends AppCompatActivity {
         
         return history;
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-        }
-    }
 }
\ No newline at end of file
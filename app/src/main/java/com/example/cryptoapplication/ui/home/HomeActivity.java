@@ -3,8 +3,7 @@ package com.example.cryptoapplication.ui.home;
 import android.animation.ObjectAnimator;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -18,20 +17,34 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.cryptoapplication.R;
 import com.example.cryptoapplication.database.SimpleDatabaseService;
 import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
 import com.example.cryptoapplication.models.User;
-import com.example.cryptoapplication.models.PortfolioItem;
 import com.example.cryptoapplication.repository.CoinRepositoryRetrofit;
+import com.example.cryptoapplication.repository.PagedMarketLoader;
+import com.example.cryptoapplication.service.CoinSearchIndex;
+import com.example.cryptoapplication.service.PortfolioValuationService;
+import com.example.cryptoapplication.service.SearchPipeline;
 import com.example.cryptoapplication.ui.home.adapter.CoinAdapter;
 import com.example.cryptoapplication.ui.profile.ProfileActivity;
+import com.example.cryptoapplication.utils.AppExecutors;
+import com.example.cryptoapplication.utils.ChangeColors;
+import com.example.cryptoapplication.utils.CoinIcons;
+import com.example.cryptoapplication.utils.PriceFormatter;
+import com.example.cryptoapplication.utils.TaskScope;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 public class HomeActivity extends AppCompatActivity {
 
+    private static final String TAG = "HomeActivity";
+    // Coins loaded page by page once the top 30 are on screen
+    private static final int MARKET_SIZE = 1000;
+    // Keystrokes closer together than this are searched once
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
     // UI Components
     private RecyclerView coinRecyclerView;
     private CircularProgressIndicator loadingProgressBar;
@@ -47,13 +60,69 @@ public class HomeActivity extends AppCompatActivity {
     private CoinAdapter coinAdapter;
     private CoinRepositoryRetrofit coinRepository;
     private SimpleDatabaseService databaseService;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private PortfolioValuationService valuationService;
+    private AppExecutors executors;
+    // Market renders and balance loads each run in order, on the shared cpu and disk-read pools
+    private Executor marketRenderer;
+    private Executor balanceLoader;
+    // Work owned by this screen; cancelled, and its results dropped, once it is destroyed
+    private TaskScope tasks;
+    // Latest fetch and balance load; starting another cancels the one it replaces
+    private TaskScope.Task fetchTask;
+    private TaskScope.Task balanceTask;
+    private SearchPipeline<List<CoinModel>> searchPipeline;
+    private ChangeColors changeColors;
+    private final PriceFormatter balanceText = new PriceFormatter();
+    private final PriceFormatter balanceChangeText = new PriceFormatter();
+    
+    // Search index over the market currently on screen; set on the main thread, read by searches
+    private volatile CoinSearchIndex shownIndex = CoinSearchIndex.EMPTY;
+    // Last index built, reused while the snapshot is unchanged; only touched by marketRenderer
+    private CoinSearchIndex latestIndex = CoinSearchIndex.EMPTY;
+    
+    // Cached data is shown first; this repaints once the background refresh brings newer prices,
+    // and brings the rest of the market up to date with them
+    private final CoinRepositoryRetrofit.OnCoinsUpdatedListener coinsUpdatedListener = coins -> {
+        if (!tasks.isClosed()) {
+            marketRenderer.execute(() -> showMarket(currentTab));
+            loadMarketPages();
+        }
+    };
     
-    private List<CoinModel> allCoinsCache = new ArrayList<>();
+    // The load in progress, and when the last complete one finished; guarded by this
+    private PagedMarketLoader.Load marketLoad;
+    private long marketLoadedAt;
+    
+    // The market grows on screen as pages land, on top of whatever is already listed
+    private final PagedMarketLoader.PageListener marketPageListener = new PagedMarketLoader.PageListener() {
+        @Override
+        public void onPageLoaded(int pagesLoaded, int pageCount, List<CoinModel> coinsSoFar) {
+            if (!tasks.isClosed()) {
+                marketRenderer.execute(() -> showMarket(currentTab));
+            }
+        }
+        
+        @Override
+        public void onLoadFinished(List<CoinModel> coins, int failedPages) {
+            synchronized (HomeActivity.this) {
+                marketLoad = null;
+                // A load with failed pages leaves the time alone, so the next refresh retries at once
+                if (failedPages == 0) {
+                    marketLoadedAt = System.currentTimeMillis();
+                }
+            }
+            if (failedPages > 0) {
+                Log.w(TAG, "Market load finished with " + coins.size() + " coins, " + failedPages + " page(s) failed");
+                // The pages that did arrive were merged in without going through onPageLoaded
+                if (!coins.isEmpty() && !tasks.isClosed()) {
+                    marketRenderer.execute(() -> showMarket(currentTab));
+                }
+            }
+        }
+    };
     
     private enum TabType { ALL, GAINERS, LOSERS }
-    private TabType currentTab = TabType.ALL;
+    private volatile TabType currentTab = TabType.ALL;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,10 +130,18 @@ public class HomeActivity extends AppCompatActivity {
         setContentView(R.layout.activity_home);
         
         // Initialize services first
-        coinRepository = new CoinRepositoryRetrofit();
+        coinRepository = new CoinRepositoryRetrofit(this);
         databaseService = SimpleDatabaseService.getInstance(this);
-        executorService = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainLooper());
+        valuationService = new PortfolioValuationService();
+        executors = AppExecutors.get();
+        marketRenderer = AppExecutors.serial(executors.cpu());
+        balanceLoader = AppExecutors.serial(executors.diskRead());
+        tasks = TaskScope.of(this);
+        // Registered once the renderer and scope it uses exist
+        CoinRepositoryRetrofit.addOnCoinsUpdatedListener(coinsUpdatedListener);
+        changeColors = new ChangeColors(this);
+        searchPipeline = new SearchPipeline<>(this::searchCoins, this::showSearchResult,
+                tasks::post, SEARCH_DEBOUNCE_MS);
         
         // Initialize views
         initViews();
@@ -101,6 +178,7 @@ public class HomeActivity extends AppCompatActivity {
         coinAdapter = new CoinAdapter(new ArrayList<>());
         coinRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         coinRecyclerView.setAdapter(coinAdapter);
+        coinRecyclerView.addOnScrollListener(coinAdapter.createIconPreloader(this));
         
         coinAdapter.setOnCoinClickListener(coin -> {
             try {
@@ -146,13 +224,13 @@ public class HomeActivity extends AppCompatActivity {
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                filterCoins(query);
+                searchPipeline.submitNow(query);
                 return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                filterCoins(newText);
+                searchPipeline.submit(newText);
                 return true;
             }
         });
@@ -234,86 +312,70 @@ public class HomeActivity extends AppCompatActivity {
         });
     }
 
-    private void loadUserBalance() {
-        executorService.execute(() -> {
+    // Called from the main thread and from market renders
+    private synchronized void loadUserBalance() {
+        if (balanceTask != null) {
+            balanceTask.cancel();
+        }
+        balanceTask = tasks.launch(balanceLoader, task -> {
             try {
                 if (databaseService.isUserLoggedIn()) {
                     User currentUser = databaseService.getCurrentUser();
                     double cashBalance = currentUser.getBalance();
                     
-                    // Calculate portfolio value
-                    double portfolioValue = calculatePortfolioValue();
-                    double totalBalance = cashBalance + portfolioValue;
+                    // Value holdings and their 24h move in one pass over the fetched prices
+                    PortfolioValuationService.Valuation valuation = calculatePortfolioValue();
+                    double totalBalance = cashBalance + valuation.getTotalValue();
                     
-                    // Calculate 24h change (simplified - using a mock calculation)
-                    double changeAmount = totalBalance * 0.024; // Mock 2.4% change
-                    double changePercent = 2.4;
+                    // Cash does not move, so the change is relative to the whole balance 24h ago
+                    double changeAmount = valuation.getChange24h();
+                    double previousBalance = totalBalance - changeAmount;
+                    double changePercent = previousBalance > 0 ? changeAmount * 100.0 / previousBalance : 0.0;
                     
-                    mainHandler.post(() -> updateBalanceUI(totalBalance, changeAmount, changePercent));
+                    task.post(() -> updateBalanceUI(totalBalance, changeAmount, changePercent));
                 } else {
-                    mainHandler.post(() -> updateBalanceUI(0.0, 0.0, 0.0));
+                    task.post(() -> updateBalanceUI(0.0, 0.0, 0.0));
                 }
             } catch (Exception e) {
                 e.printStackTrace();
-                mainHandler.post(() -> updateBalanceUI(0.0, 0.0, 0.0));
+                task.post(() -> updateBalanceUI(0.0, 0.0, 0.0));
             }
         });
     }
     
-    private double calculatePortfolioValue() {
+    private PortfolioValuationService.Valuation calculatePortfolioValue() {
         try {
             if (!databaseService.isUserLoggedIn()) {
-                return 0.0;
+                return valuationService.value(null, null);
             }
             
-            List<PortfolioItem> portfolio = databaseService.getUserPortfolio();
-            if (portfolio == null || portfolio.isEmpty()) {
-                return 0.0;
-            }
-            
-            double totalValue = 0.0;
-            List<CoinModel> currentCoins = coinRepository.getCoins();
-            
-            if (currentCoins != null) {
-                for (PortfolioItem item : portfolio) {
-                    // Find current price for this coin
-                    for (CoinModel coin : currentCoins) {
-                        if (coin.getId().equals(item.getCoinId())) {
-                            totalValue += item.getQuantity() * coin.getCurrentPrice();
-                            break;
-                        }
-                    }
-                }
-            }
-            
-            return totalValue;
+            // Reuse the prices the coin list already fetched instead of calling the API again
+            return valuationService.valueAt(databaseService.getHoldings(), CoinRepositoryRetrofit.getMarketSnapshot());
         } catch (Exception e) {
             e.printStackTrace();
-            return 0.0;
+            return valuationService.value(null, null);
         }
     }
     
     private void updateBalanceUI(double totalBalance, double changeAmount, double changePercent) {
         if (txtTotalBalance != null) {
-            txtTotalBalance.setText(String.format("$%.2f", totalBalance));
+            balanceText.reset().usd(totalBalance);
+            txtTotalBalance.setText(balanceText.chars(), 0, balanceText.length());
         }
         
         if (txtBalanceChange != null) {
-            String changeText;
             int textColor;
+            balanceChangeText.reset();
             
-            if (changeAmount > 0) {
-                changeText = String.format("+$%.2f (+%.2f%%)", changeAmount, changePercent);
-                textColor = ContextCompat.getColor(this, R.color.green_profit);
-            } else if (changeAmount < 0) {
-                changeText = String.format("$%.2f (%.2f%%)", changeAmount, changePercent);
-                textColor = ContextCompat.getColor(this, R.color.red_loss);
+            if (changeAmount != 0) {
+                balanceChangeText.signedUsd(changeAmount).append(" (").percent(changePercent).append(')');
+                textColor = changeAmount > 0 ? changeColors.profit : changeColors.loss;
             } else {
-                changeText = "$0.00 (0.00%)";
-                textColor = ContextCompat.getColor(this, R.color.text_secondary);
+                balanceChangeText.append("$0.00 (0.00%)");
+                textColor = changeColors.neutral;
             }
             
-            txtBalanceChange.setText(changeText);
+            txtBalanceChange.setText(balanceChangeText.chars(), 0, balanceChangeText.length());
             txtBalanceChange.setTextColor(textColor);
         }
     }
@@ -336,79 +398,144 @@ public class HomeActivity extends AppCompatActivity {
     private void fetchCoins(TabType type) {
         showLoading();
         
-        executorService.execute(() -> {
+        // Switching tabs quickly leaves only the last fetch running
+        if (fetchTask != null) {
+            fetchTask.cancel();
+        }
+        fetchTask = tasks.launch(executors.network(), task -> {
             try {
-                List<CoinModel> allCoins = coinRepository.getCoins();
+                List<CoinModel> allCoins = coinRepository.getCoins(task);
+                if (task.isCancelled()) {
+                    return;
+                }
                 
                 if (allCoins == null || allCoins.isEmpty()) {
-                    mainHandler.post(() -> {
+                    task.post(() -> {
                         showError("No data available. Check your connection.");
                         coinAdapter.updateCoins(new ArrayList<>());
                     });
                     return;
                 }
                 
-                List<CoinModel> result;
-                switch (type) {
-                    case GAINERS:
-                        result = coinRepository.getTopGainersTab(allCoins);
-                        break;
-                    case LOSERS:
-                        result = coinRepository.getTopLosersTab(allCoins);
-                        break;
-                    default:
-                        result = coinRepository.getAllCoinsTab(allCoins);
-                        break;
-                }
-                
-                mainHandler.post(() -> {
-                    allCoinsCache.clear();
-                    allCoinsCache.addAll(allCoins);
-                    coinAdapter.updateCoins(result);
-                    showContent();
-                });
+                marketRenderer.execute(() -> showMarket(type));
                 
             } catch (Exception e) {
                 e.printStackTrace();
-                mainHandler.post(() -> {
+                task.post(() -> {
                     showError("Error loading data: " + e.getMessage());
                     coinAdapter.updateCoins(new ArrayList<>());
                 });
+            } finally {
+                loadMarketPages();
             }
         });
     }
 
-    private void filterCoins(String query) {
-        if (allCoinsCache.isEmpty()) return;
-        
-        String searchText = query == null ? "" : query.trim().toLowerCase();
+    // Started after each getCoins so the top 30 win the race for the first rate-limit tokens.
+    // The pages are loaded again on a later refresh once the last complete load is older than
+    // the freshness window, so coins past the top 30 do not keep their first prices
+    private synchronized void loadMarketPages() {
+        long age = System.currentTimeMillis() - marketLoadedAt;
+        if (marketLoad == null && age >= CoinRepositoryRetrofit.FRESHNESS_WINDOW_MS && !tasks.isClosed()) {
+            marketLoad = coinRepository.loadMarket(MARKET_SIZE, marketPageListener);
+        }
+    }
+
+    // Runs on marketRenderer; renders the latest market snapshot into the given tab
+    private void showMarket(TabType type) {
+        MarketSnapshot market = CoinRepositoryRetrofit.getMarketSnapshot();
+        List<CoinModel> result = tabCoins(type, market);
+        // Indexed here, once per snapshot, so keystrokes on the main thread only query
+        boolean newMarket = latestIndex.getMarket() != market;
+        if (newMarket) {
+            latestIndex = CoinSearchIndex.build(market);
+        }
+        CoinSearchIndex index = latestIndex;
         
-        List<CoinModel> baseList;
-        switch (currentTab) {
+        tasks.post(() -> {
+            if (newMarket) {
+                // Icons for the coins most likely to be seen, before the rows ask for them
+                CoinIcons.preloadTop(this, market.getCoins(), CoinIcons.PRELOAD_TOP_COINS);
+            }
+            shownIndex = index;
+            showContent();
+            // Keep an active search applied when a background refresh lands; the unfiltered
+            // list would flash on screen until the search result replaced it
+            CharSequence query = searchView != null ? searchView.getQuery() : null;
+            if (query != null && query.length() > 0) {
+                searchPipeline.submitNow(query.toString());
+            } else {
+                coinAdapter.updateCoins(result);
+            }
+        });
+        // Revalue the portfolio now that fresh prices are in
+        loadUserBalance();
+    }
+
+    private List<CoinModel> tabCoins(TabType type, MarketSnapshot market) {
+        switch (type) {
+            case GAINERS:
+                return coinRepository.getTopGainersTab();
+            case LOSERS:
+                return coinRepository.getTopLosersTab();
+            default:
+                return coinRepository.getAllCoinsTab(market.getCoins());
+        }
+    }
+
+    // The leaderboards follow the published market, which can be newer than the indexed one;
+    // picking from the indexed snapshot itself keeps positions valid for its matches
+    private List<CoinModel> snapshotTabCoins(TabType type, MarketSnapshot market) {
+        switch (type) {
             case GAINERS:
-                baseList = coinRepository.getTopGainersTab(allCoinsCache);
-                break;
+                return coinRepository.getTopGainersTab(market);
             case LOSERS:
-                baseList = coinRepository.getTopLosersTab(allCoinsCache);
-                break;
+                return coinRepository.getTopLosersTab(market);
             default:
-                baseList = coinRepository.getAllCoinsTab(allCoinsCache);
-                break;
+                return coinRepository.getAllCoinsTab(market.getCoins());
         }
+    }
+
+    // Runs on the search thread; stops early once a newer query supersedes this one
+    private List<CoinModel> searchCoins(String query, SearchPipeline.Cancellation cancellation) {
+        CoinSearchIndex index = shownIndex;
+        MarketSnapshot market = index.getMarket();
+        TabType tab = currentTab;
+        if (market.isEmpty()) return null;
         
-        List<CoinModel> filtered = new ArrayList<>();
-        for (CoinModel coin : baseList) {
-            String name = coin.getName() != null ? coin.getName().toLowerCase() : "";
-            String symbol = coin.getSymbol() != null ? coin.getSymbol().toLowerCase() : "";
-            
-            if (name.contains(searchText) || symbol.contains(searchText)) {
-                filtered.add(coin);
-            }
+        if (query == null || query.trim().isEmpty()) {
+            return snapshotTabCoins(tab, market);
         }
         
-        coinAdapter.updateCoins(filtered);
+        // Exact symbol, then prefix, then substring matches, each by market cap
+        int[] matches = index.search(query, market.size());
+        if (cancellation.isCancelled()) return null;
+        List<CoinModel> filtered = new ArrayList<>(matches.length);
+        if (tab == TabType.ALL) {
+            for (int i : matches) {
+                filtered.add(market.coin(i));
+            }
+        } else {
+            // Gainers and losers keep their own order, narrowed to the matches
+            boolean[] matched = new boolean[market.size()];
+            for (int i : matches) {
+                matched[i] = true;
+            }
+            for (CoinModel coin : snapshotTabCoins(tab, market)) {
+                if (cancellation.isCancelled()) return null;
+                int i = market.indexOf(coin.getId());
+                if (i >= 0 && matched[i]) {
+                    filtered.add(coin);
+                }
+            }
+        }
+        return filtered;
+    }
+    
+    private void showSearchResult(String query, List<CoinModel> coins) {
+        coinAdapter.updateCoins(coins);
         
-        if (filtered.isEmpty()) {
+        if (coins.isEmpty() && query != null && !query.trim().isEmpty()) {
             errorTextView.setVisibility(View.VISIBLE);
             errorTextView.setText("No coins match your search.");
         } else {
@@ -417,7 +544,7 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     private void showLoading() {
-        mainHandler.post(() -> {
+        tasks.post(() -> {
             if (loadingProgressBar != null) loadingProgressBar.setVisibility(View.VISIBLE);
             if (errorTextView != null) errorTextView.setVisibility(View.GONE);
             if (coinRecyclerView != null) coinRecyclerView.setVisibility(View.GONE);
@@ -425,7 +552,7 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     private void showError(String message) {
-        mainHandler.post(() -> {
+        tasks.post(() -> {
             if (loadingProgressBar != null) loadingProgressBar.setVisibility(View.GONE);
             if (errorTextView != null) {
                 errorTextView.setVisibility(View.VISIBLE);
@@ -436,7 +563,7 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     private void showContent() {
-        mainHandler.post(() -> {
+        tasks.post(() -> {
             if (loadingProgressBar != null) loadingProgressBar.setVisibility(View.GONE);
             if (errorTextView != null) errorTextView.setVisibility(View.GONE);
             if (coinRecyclerView != null) coinRecyclerView.setVisibility(View.VISIBLE);
@@ -453,8 +580,14 @@ public class HomeActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+        CoinRepositoryRetrofit.removeOnCoinsUpdatedListener(coinsUpdatedListener);
+        if (searchPipeline != null) {
+            searchPipeline.shutdown();
+        }
+        synchronized (this) {
+            if (marketLoad != null) {
+                marketLoad.cancel();
+            }
         }
     }
 }
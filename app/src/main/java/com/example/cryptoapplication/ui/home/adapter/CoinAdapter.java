@@ -1,111 +1,199 @@
-package com.example.cryptoapplication.ui.home.adapter;
-
-import android.graphics.Color;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
-
-import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
-
-import com.bumptech.glide.Glide;
-import com.example.cryptoapplication.R;
-import com.example.cryptoapplication.models.CoinModel;
-
-import java.util.List;
-
-public class CoinAdapter extends RecyclerView.Adapter<CoinAdapter.CoinViewHolder> {
-
-    private List<CoinModel> coinList;
-    private OnCoinClickListener onCoinClickListener;
-
-    public CoinAdapter(List<CoinModel> coinList) {
-        this.coinList = coinList;
-    }
-
-    @NonNull
-    @Override
-    public CoinViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_coin, parent, false);
-        return new CoinViewHolder(view);
-    }
-
-    public void updateData(List<CoinModel> newData) {
-        if (this.coinList != null && newData != null) {
-            this.coinList.clear();
-            this.coinList.addAll(newData);
-            notifyDataSetChanged();
-        }
-    }
-
-    public void updateCoins(List<CoinModel> newData) {
-        updateData(newData);
-    }
-
-    public void setOnCoinClickListener(OnCoinClickListener listener) {
-        this.onCoinClickListener = listener;
-    }
-
-    @Override
-    public void onBindViewHolder(@NonNull CoinViewHolder holder, int position) {
-        CoinModel coin = coinList.get(position);
-        if (coin != null) {
-            holder.coinName.setText(coin.getName());
-            holder.coinSymbol.setText(coin.getSymbol().toUpperCase());
-            
-            // Format price
-            holder.coinPrice.setText(String.format("$%.2f", coin.getCurrentPrice()));
-            
-            // Format and color the price change
-            double priceChange = coin.getPriceChangePercentage24h();
-            String changeText = String.format("%+.2f%%", priceChange);
-            holder.coinChange.setText(changeText);
-            
-            // Set color based on positive/negative change
-            if (priceChange >= 0) {
-                holder.coinChange.setTextColor(Color.parseColor("#00D4AA")); // green_profit
-            } else {
-                holder.coinChange.setTextColor(Color.parseColor("#FF6B6B")); // red_loss
-            }
-
-            // Load coin image
-            Glide.with(holder.itemView.getContext())
-                    .load(coin.getImage())
-                    .placeholder(R.drawable.mianlogo)
-                    .error(R.drawable.mianlogo)
-                    .into(holder.coinImage);
-
-            holder.itemView.setOnClickListener(v -> {
-                if (onCoinClickListener != null) {
-                    onCoinClickListener.onCoinClick(coin);
-                }
-            });
-        }
-    }
-
-    @Override
-    public int getItemCount() {
-        return coinList != null ? coinList.size() : 0;
-    }
-
-    public static class CoinViewHolder extends RecyclerView.ViewHolder {
-        TextView coinName, coinSymbol, coinPrice, coinChange;
-        ImageView coinImage;
-
-        public CoinViewHolder(@NonNull View itemView) {
-            super(itemView);
-            coinName = itemView.findViewById(R.id.coinName);
-            coinSymbol = itemView.findViewById(R.id.coinSymbol);
-            coinPrice = itemView.findViewById(R.id.coinPrice);
-            coinChange = itemView.findViewById(R.id.coinChange);
-            coinImage = itemView.findViewById(R.id.coinImage);
-        }
-    }
-
-    public interface OnCoinClickListener {
-        void onCoinClick(CoinModel coin);
-    }
+package com.example.cryptoapplication.ui.home.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.example.cryptoapplication.R;
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.utils.ChangeColors;
+import com.example.cryptoapplication.utils.CoinIcons;
+import com.example.cryptoapplication.utils.PriceFormatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coin rows diffed on a background thread by coin id, so a refresh only rebinds the rows
+ * that changed, and a row whose price alone moved only updates its price and change text.
+ */
+public class CoinAdapter extends RecyclerView.Adapter<CoinAdapter.CoinViewHolder> {
+
+    private final AsyncListDiffer<CoinModel> differ = new AsyncListDiffer<>(this, new CoinDiffCallback());
+    // Stable ids handed out per coin id; only touched on the main thread
+    private final Map<String, Long> itemIds = new HashMap<>();
+    private OnCoinClickListener onCoinClickListener;
+    // Resolved from the first parent's context, then reused for every row
+    private ChangeColors colors;
+    private int iconSize;
+
+    public CoinAdapter(List<CoinModel> coinList) {
+        setHasStableIds(true);
+        updateData(coinList);
+    }
+
+    @NonNull
+    @Override
+    public CoinViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (colors == null) {
+            colors = new ChangeColors(parent.getContext());
+            iconSize = CoinIcons.listIconSize(parent.getContext());
+        }
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_coin, parent, false);
+        CoinViewHolder holder = new CoinViewHolder(view);
+        holder.itemView.setOnClickListener(v -> {
+            if (onCoinClickListener != null && holder.coin != null) {
+                onCoinClickListener.onCoinClick(holder.coin);
+            }
+        });
+        return holder;
+    }
+
+    /**
+     * Show a new list; the diff runs in the background and the rows update when it completes.
+     * The list is copied, so the caller may keep changing its own.
+     */
+    public void updateData(List<CoinModel> newData) {
+        if (newData != null) {
+            differ.submitList(new ArrayList<>(newData));
+        }
+    }
+
+    public void updateCoins(List<CoinModel> newData) {
+        updateData(newData);
+    }
+
+    public void setOnCoinClickListener(OnCoinClickListener listener) {
+        this.onCoinClickListener = listener;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CoinViewHolder holder, int position) {
+        CoinModel coin = differ.getCurrentList().get(position);
+        holder.coin = coin;
+        if (coin != null) {
+            holder.coinName.setText(coin.getName());
+            holder.coinSymbol.setText(coin.getSymbol().toUpperCase());
+            bindPrice(holder, coin);
+
+            // Load coin image, decoded at row size
+            CoinIcons.request(Glide.with(holder.itemView), coin.getId(), coin.getImage(), iconSize)
+                    .placeholder(R.drawable.mianlogo)
+                    .error(R.drawable.mianlogo)
+                    .into(holder.coinImage);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CoinViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !payloads.contains(CoinDiffCallback.PAYLOAD_PRICE)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // Same coin with new numbers: name, symbol and icon are already on screen
+        CoinModel coin = differ.getCurrentList().get(position);
+        holder.coin = coin;
+        if (coin != null) {
+            bindPrice(holder, coin);
+        }
+    }
+
+    private void bindPrice(CoinViewHolder holder, CoinModel coin) {
+        // Format price, with more places for sub-cent coins
+        PriceFormatter price = holder.priceText.reset().price(coin.getCurrentPrice());
+        holder.coinPrice.setText(price.chars(), 0, price.length());
+        
+        // Format and color the price change
+        double priceChange = coin.getPriceChangePercentage24h();
+        PriceFormatter change = holder.changeText.reset().percent(priceChange);
+        holder.coinChange.setText(change.chars(), 0, change.length());
+        holder.coinChange.setTextColor(colors.forChange(priceChange));
+    }
+
+    /**
+     * Scroll listener that fetches icons for the rows about to come on screen, in either
+     * direction, so a fling finds them already decoded at row size
+     */
+    public RecyclerView.OnScrollListener createIconPreloader(Context context) {
+        RequestManager glide = Glide.with(context);
+        int size = CoinIcons.listIconSize(context);
+        ListPreloader.PreloadModelProvider<CoinModel> icons = new ListPreloader.PreloadModelProvider<CoinModel>() {
+            @NonNull
+            @Override
+            public List<CoinModel> getPreloadItems(int position) {
+                List<CoinModel> coins = differ.getCurrentList();
+                CoinModel coin = position < coins.size() ? coins.get(position) : null;
+                if (coin == null || coin.getImage() == null || coin.getImage().isEmpty()) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(coin);
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull CoinModel coin) {
+                return CoinIcons.request(glide, coin.getId(), coin.getImage(), size);
+            }
+        };
+        return new RecyclerViewPreloader<>(glide, icons, new FixedPreloadSizeProvider<>(size, size),
+                CoinIcons.PRELOAD_AHEAD);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        CoinModel coin = differ.getCurrentList().get(position);
+        String id = coin != null ? coin.getId() : null;
+        Long itemId = itemIds.get(id);
+        if (itemId == null) {
+            itemId = (long) itemIds.size();
+            itemIds.put(id, itemId);
+        }
+        return itemId;
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    public static class CoinViewHolder extends RecyclerView.ViewHolder {
+        TextView coinName, coinSymbol, coinPrice, coinChange;
+        ImageView coinImage;
+        // Row currently bound, read by the click listener set once per holder
+        CoinModel coin;
+        // One buffer per TextView, since the view keeps the array it was given
+        final PriceFormatter priceText = new PriceFormatter();
+        final PriceFormatter changeText = new PriceFormatter();
+
+        public CoinViewHolder(@NonNull View itemView) {
+            super(itemView);
+            coinName = itemView.findViewById(R.id.coinName);
+            coinSymbol = itemView.findViewById(R.id.coinSymbol);
+            coinPrice = itemView.findViewById(R.id.coinPrice);
+            coinChange = itemView.findViewById(R.id.coinChange);
+            coinImage = itemView.findViewById(R.id.coinImage);
+        }
+    }
+
+    public interface OnCoinClickListener {
+        void onCoinClick(CoinModel coin);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.cryptoapplication.ui.home.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.cryptoapplication.models.CoinModel;
+
+import java.util.Objects;
+
+/**
+ * Diffs coin rows by id and compares only the fields a row displays.
+ * When just the price or 24h change moved, the change is reported as {@link #PAYLOAD_PRICE}
+ * so the row rebinds its two numbers and leaves the name, symbol and icon alone.
+ */
+final class CoinDiffCallback extends DiffUtil.ItemCallback<CoinModel> {
+
+    static final Object PAYLOAD_PRICE = new Object();
+
+    @Override
+    public boolean areItemsTheSame(@NonNull CoinModel oldCoin, @NonNull CoinModel newCoin) {
+        return Objects.equals(oldCoin.getId(), newCoin.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull CoinModel oldCoin, @NonNull CoinModel newCoin) {
+        return sameIdentity(oldCoin, newCoin) && samePrice(oldCoin, newCoin);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull CoinModel oldCoin, @NonNull CoinModel newCoin) {
+        // Only called when contents differ, so matching identity means the numbers moved
+        return sameIdentity(oldCoin, newCoin) ? PAYLOAD_PRICE : null;
+    }
+
+    private static boolean sameIdentity(CoinModel oldCoin, CoinModel newCoin) {
+        return Objects.equals(oldCoin.getName(), newCoin.getName())
+                && Objects.equals(oldCoin.getSymbol(), newCoin.getSymbol())
+                && Objects.equals(oldCoin.getImage(), newCoin.getImage());
+    }
+
+    private static boolean samePrice(CoinModel oldCoin, CoinModel newCoin) {
+        return Double.compare(oldCoin.getCurrentPrice(), newCoin.getCurrentPrice()) == 0
+                && Double.compare(oldCoin.getPriceChangePercentage24h(), newCoin.getPriceChangePercentage24h()) == 0;
+    }
+}
@@ -6,32 +6,48 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cryptoapplication.R;
 import com.example.cryptoapplication.models.PortfolioItem;
 import com.example.cryptoapplication.database.SimpleDatabaseService;
 import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.utils.ChangeColors;
+import com.example.cryptoapplication.utils.PriceFormatter;
 
 import java.text.SimpleDateFormat;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.ViewHolder> {
 
     private final List<PortfolioItem> items;
-    private final SimpleDatabaseService databaseService;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+    // Names for every coin in the list, looked up once instead of per bind
+    private final Map<String, CoinModel> coinsById;
+    private ChangeColors colors;
 
     public TransactionAdapter(List<PortfolioItem> items, SimpleDatabaseService databaseService) {
         this.items = items;
-        this.databaseService = databaseService;
+        
+        Set<String> coinIds = new HashSet<>();
+        if (items != null) {
+            for (PortfolioItem item : items) {
+                if (item.getCoinId() != null) coinIds.add(item.getCoinId());
+            }
+        }
+        this.coinsById = databaseService.findCoinsByIds(coinIds);
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (colors == null) {
+            colors = new ChangeColors(parent.getContext());
+        }
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_transaction, parent, false);
         return new ViewHolder(view);
     }
@@ -43,7 +59,7 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         // Get coin name
         String displayName = item.getCoinId();
         if (item.getCoinId() != null && !item.getCoinId().isEmpty()) {
-            CoinModel coin = databaseService.findCoinById(item.getCoinId());
+            CoinModel coin = coinsById.get(item.getCoinId());
             if (coin != null && coin.getName() != null) {
                 displayName = coin.getName();
             } else {
@@ -59,18 +75,21 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         holder.txtType.setText(transactionType);
         
         if ("BUY".equals(transactionType)) {
-            holder.txtType.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), R.color.green_profit));
+            holder.txtType.setTextColor(colors.profit);
         } else if ("SELL".equals(transactionType)) {
-            holder.txtType.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), R.color.red_loss));
+            holder.txtType.setTextColor(colors.loss);
         }
         
         // Set quantity and price
-        holder.txtQuantity.setText(String.format(Locale.getDefault(), "%.8f", item.getQuantity()));
-        holder.txtPrice.setText(String.format(Locale.getDefault(), "$%.2f", item.getPurchasePrice()));
+        PriceFormatter quantity = holder.quantityText.reset().quantity(item.getQuantity(), 8);
+        holder.txtQuantity.setText(quantity.chars(), 0, quantity.length());
+        PriceFormatter price = holder.priceText.reset().price(item.getPurchasePrice());
+        holder.txtPrice.setText(price.chars(), 0, price.length());
         
         // Set total value
         double totalValue = item.getQuantity() * item.getPurchasePrice();
-        holder.txtTotalValue.setText(String.format(Locale.getDefault(), "$%.2f", totalValue));
+        PriceFormatter total = holder.totalValueText.reset().usd(totalValue);
+        holder.txtTotalValue.setText(total.chars(), 0, total.length());
         
         // Set date
         holder.txtDate.setText(dateFormat.format(new java.util.Date(item.getPurchaseDate())));
@@ -83,6 +102,9 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     static class ViewHolder extends RecyclerView.ViewHolder {
         TextView txtCoinName, txtCoinSymbol, txtType, txtQuantity, txtPrice, txtTotalValue, txtDate;
+        final PriceFormatter quantityText = new PriceFormatter();
+        final PriceFormatter priceText = new PriceFormatter();
+        final PriceFormatter totalValueText = new PriceFormatter();
         
         ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -0,0 +1,294 @@
+package com.example.cryptoapplication.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide thread pools shared by every screen and repository, split by what the work
+ * waits on so a slow request never holds up a database read or a favorite toggle:
+ * network for HTTP calls, diskRead for queries, diskWrite for inserts and updates and
+ * cpu for sorting, indexing and valuation.
+ * diskWrite has a single thread, so writes run in submission order and never contend for
+ * SQLite's one write lock. Queues are bounded; a full queue rejects the task rather than
+ * letting a backlog grow without limit.
+ * Every pool counts queue depth, rejections and wait/run latency, see {@link #getStats()}.
+ */
+public final class AppExecutors {
+
+    private static final int NETWORK_THREADS = 4;
+    // WAL lets readers run beside the writer, but the connection pool is small
+    private static final int DISK_READ_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 256;
+    // Idle threads exit after this, so a backgrounded app holds no workers
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static AppExecutors instance;
+
+    private final Pool network;
+    private final Pool diskRead;
+    private final Pool diskWrite;
+    private final Pool cpu;
+    private volatile Executor mainThread;
+
+    private AppExecutors() {
+        network = new Pool("network", NETWORK_THREADS);
+        diskRead = new Pool("disk-read", DISK_READ_THREADS);
+        diskWrite = new Pool("disk-write", 1);
+        cpu = new Pool("cpu", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static synchronized AppExecutors get() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Stop every pool. Queued tasks are dropped and running ones are interrupted; the next
+     * {@link #get()} starts fresh pools. Meant for process teardown and tests.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            for (Pool pool : instance.pools()) {
+                pool.shutdownNow();
+            }
+            instance = null;
+        }
+    }
+
+    public Pool network() {
+        return network;
+    }
+
+    public Pool diskRead() {
+        return diskRead;
+    }
+
+    public Pool diskWrite() {
+        return diskWrite;
+    }
+
+    public Pool cpu() {
+        return cpu;
+    }
+
+    /**
+     * @return Executor that posts to the main thread; created on first use
+     */
+    public Executor mainThread() {
+        if (mainThread == null) {
+            Handler handler = new Handler(Looper.getMainLooper());
+            mainThread = handler::post;
+        }
+        return mainThread;
+    }
+
+    /**
+     * @return Current metrics for each pool
+     */
+    public List<Pool.Stats> getStats() {
+        Pool[] pools = pools();
+        Pool.Stats[] stats = new Pool.Stats[pools.length];
+        for (int i = 0; i < pools.length; i++) {
+            stats[i] = pools[i].getStats();
+        }
+        return Arrays.asList(stats);
+    }
+
+    private Pool[] pools() {
+        return new Pool[] { network, diskRead, diskWrite, cpu };
+    }
+
+    /**
+     * Runs tasks one at a time, in submission order, on top of a shared pool. For work
+     * that relied on a single-thread executor's ordering, without holding a thread of its own.
+     */
+    public static Executor serial(Executor pool) {
+        return new SerialExecutor(pool);
+    }
+
+    /**
+     * A bounded pool that records how long tasks wait in its queue and how long they run
+     */
+    public static final class Pool implements Executor {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxRunNanos = new AtomicLong();
+
+        Pool(String name, int threads) {
+            this.name = name;
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                        Thread thread = new Thread(runnable, "app-" + name + "-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * @throws RejectedExecutionException When the queue is full or the pool was shut down
+         */
+        @Override
+        public void execute(Runnable task) {
+            long queuedAt = System.nanoTime();
+            try {
+                executor.execute(() -> run(task, queuedAt));
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                throw e;
+            }
+        }
+
+        /**
+         * @return Future for the result; cancelling it drops the task if it has not started
+         */
+        public <T> Future<T> submit(Callable<T> task) {
+            FutureTask<T> future = new FutureTask<>(task);
+            execute(future);
+            return future;
+        }
+
+        private void run(Runnable task, long queuedAt) {
+            long startedAt = System.nanoTime();
+            record(startedAt - queuedAt, totalWaitNanos, maxWaitNanos);
+            try {
+                task.run();
+            } finally {
+                record(System.nanoTime() - startedAt, totalRunNanos, maxRunNanos);
+                completed.incrementAndGet();
+            }
+        }
+
+        private static void record(long nanos, AtomicLong total, AtomicLong max) {
+            total.addAndGet(nanos);
+            long current;
+            while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+                // Lost a race with another task; retry against the new maximum
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQueueDepth() {
+            return executor.getQueue().size();
+        }
+
+        public int getActiveCount() {
+            return executor.getActiveCount();
+        }
+
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        public Stats getStats() {
+            long done = completed.get();
+            return new Stats(name, getQueueDepth(), getActiveCount(), done, rejected.get(),
+                    done > 0 ? totalWaitNanos.get() / done : 0, maxWaitNanos.get(),
+                    done > 0 ? totalRunNanos.get() / done : 0, maxRunNanos.get());
+        }
+
+        void shutdownNow() {
+            executor.shutdownNow();
+        }
+
+        /**
+         * A point-in-time view of one pool's counters; latencies are in nanoseconds
+         */
+        public static final class Stats {
+            public final String name;
+            public final int queueDepth;
+            public final int activeCount;
+            public final long completed;
+            public final long rejected;
+            public final long meanWaitNanos;
+            public final long maxWaitNanos;
+            public final long meanRunNanos;
+            public final long maxRunNanos;
+
+            Stats(String name, int queueDepth, int activeCount, long completed, long rejected,
+                  long meanWaitNanos, long maxWaitNanos, long meanRunNanos, long maxRunNanos) {
+                this.name = name;
+                this.queueDepth = queueDepth;
+                this.activeCount = activeCount;
+                this.completed = completed;
+                this.rejected = rejected;
+                this.meanWaitNanos = meanWaitNanos;
+                this.maxWaitNanos = maxWaitNanos;
+                this.meanRunNanos = meanRunNanos;
+                this.maxRunNanos = maxRunNanos;
+            }
+
+            @Override
+            public String toString() {
+                return String.format(Locale.US,
+                        "%s: queued=%d active=%d completed=%d rejected=%d wait=%.1f/%.1fms run=%.1f/%.1fms",
+                        name, queueDepth, activeCount, completed, rejected,
+                        meanWaitNanos / 1e6, maxWaitNanos / 1e6, meanRunNanos / 1e6, maxRunNanos / 1e6);
+            }
+        }
+    }
+
+    private static final class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Executor pool;
+        private Runnable active;
+
+        SerialExecutor(Executor pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                try {
+                    pool.execute(active);
+                } catch (RejectedExecutionException e) {
+                    // Nothing will run the rest; drop it so later tasks can try again
+                    active = null;
+                    tasks.clear();
+                    throw e;
+                }
+            }
+        }
+    }
+}
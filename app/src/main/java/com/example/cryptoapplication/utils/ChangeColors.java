@@ -0,0 +1,31 @@
+package com.example.cryptoapplication.utils;
+
+import android.content.Context;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.cryptoapplication.R;
+
+/**
+ * Profit, loss and neutral text colors, resolved once per screen or adapter
+ * instead of looked up or parsed on every bind.
+ */
+public final class ChangeColors {
+
+    public final int profit;
+    public final int loss;
+    public final int neutral;
+
+    public ChangeColors(Context context) {
+        profit = ContextCompat.getColor(context, R.color.green_profit);
+        loss = ContextCompat.getColor(context, R.color.red_loss);
+        neutral = ContextCompat.getColor(context, R.color.text_secondary);
+    }
+
+    /**
+     * @return The profit color for zero and up, the loss color below zero
+     */
+    public int forChange(double change) {
+        return change >= 0 ? profit : loss;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.cryptoapplication.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.example.cryptoapplication.R;
+import com.example.cryptoapplication.models.CoinModel;
+
+import java.util.List;
+
+/**
+ * Coin icon requests, decoded at the size they are drawn rather than the source size.
+ * Icons are cached by coin id, not URL, because CoinGecko appends a version query that
+ * changes from one refresh to the next. Glide keeps the source and the downsampled thumbnail
+ * on disk, so scrolling only decodes small bitmaps.
+ * Every request for a size uses the same options. Preloads then hit the same memory and
+ * disk cache entries as the rows that show them.
+ */
+public final class CoinIcons {
+
+    // Market leaders fetched ahead of time when a refresh lands
+    public static final int PRELOAD_TOP_COINS = 50;
+    // Rows past the visible ones whose icons are fetched while scrolling
+    public static final int PRELOAD_AHEAD = 12;
+
+    private CoinIcons() {}
+
+    /**
+     * @return Icon size in list rows, in pixels
+     */
+    public static int listIconSize(Context context) {
+        return context.getResources().getDimensionPixelSize(R.dimen.coin_icon_size);
+    }
+
+    /**
+     * Request for one coin's icon at sizePx square; callers add placeholders and the target
+     */
+    public static RequestBuilder<Drawable> request(RequestManager glide, String coinId, String imageUrl, int sizePx) {
+        return glide.load(model(coinId, imageUrl))
+                .override(sizePx)
+                // Set explicitly: an ImageView would otherwise add its own scale-type
+                // transformation and miss the entry that a preload created
+                .centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                // CircleImageView cannot draw cross-fades, and rows rebinding mid-fling should not animate
+                .dontAnimate();
+    }
+
+    /**
+     * Fetch and decode the first count icons at list size, e.g. after a market refresh.
+     * Call on the main thread; icons already in the memory cache cost next to nothing.
+     */
+    public static void preloadTop(Context context, List<CoinModel> coins, int count) {
+        Context appContext = context.getApplicationContext();
+        RequestManager glide = Glide.with(appContext);
+        int size = listIconSize(appContext);
+        for (int i = 0; i < Math.min(count, coins.size()); i++) {
+            CoinModel coin = coins.get(i);
+            if (coin != null && coin.getImage() != null && !coin.getImage().isEmpty()) {
+                request(glide, coin.getId(), coin.getImage(), size).preload(size, size);
+            }
+        }
+    }
+
+    /**
+     * @return The Glide model for an icon, or null when the coin has no image
+     */
+    @Nullable
+    static Object model(String coinId, String imageUrl) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return null;
+        }
+        return coinId != null ? new IconUrl(coinId, imageUrl) : imageUrl;
+    }
+
+    // Memory and disk cache keys come from getCacheKey(), which also drives equals()
+    private static final class IconUrl extends GlideUrl {
+        private final String cacheKey;
+
+        IconUrl(String coinId, String url) {
+            super(url);
+            this.cacheKey = "coin-icon:" + coinId;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return cacheKey;
+        }
+    }
+}
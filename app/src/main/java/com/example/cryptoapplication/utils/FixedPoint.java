@@ -0,0 +1,129 @@
+package com.example.cryptoapplication.utils;
+
+/**
+ * Fixed-point arithmetic for money and coin quantities.
+ * Amounts are plain longs so the trade path never allocates or rounds through float:
+ * fiat is counted in micro-cents (1e-8 USD) and quantities in satoshi-style units (1e-8 coin).
+ */
+public final class FixedPoint {
+
+    /** Fiat units per dollar (micro-cents) */
+    public static final long FIAT_SCALE = 100_000_000L;
+
+    /** Quantity units per whole coin (satoshi-style) */
+    public static final long QUANTITY_SCALE = 100_000_000L;
+
+    private FixedPoint() {}
+
+    public static long fromFiat(double dollars) {
+        return Math.round(dollars * FIAT_SCALE);
+    }
+
+    public static double toFiat(long fiatUnits) {
+        return (double) fiatUnits / FIAT_SCALE;
+    }
+
+    public static long fromQuantity(double coins) {
+        return Math.round(coins * QUANTITY_SCALE);
+    }
+
+    public static double toQuantity(long quantityUnits) {
+        return (double) quantityUnits / QUANTITY_SCALE;
+    }
+
+    /**
+     * Value of a quantity at a unit price
+     * @param quantityUnits Quantity in satoshi-style units
+     * @param priceUnits Price per whole coin in micro-cents
+     * @return Value in micro-cents, rounded half away from zero
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long value(long quantityUnits, long priceUnits) {
+        return mulDiv(quantityUnits, priceUnits, QUANTITY_SCALE);
+    }
+
+    /**
+     * Share of an amount: amount * part / whole, rounded half away from zero.
+     * Used to release cost basis on partial sells, where part and whole are both quantities.
+     * The product is kept as two longs, so operands of any size work without BigInteger.
+     * @throws ArithmeticException if whole is zero or the result does not fit in a long
+     */
+    public static long proportion(long amount, long part, long whole) {
+        if (part == whole) {
+            return amount;
+        }
+        if (whole == 0) {
+            throw new ArithmeticException("/ by zero");
+        }
+        boolean negative = (amount < 0) != (part < 0) != (whole < 0);
+        amount = Math.abs(amount);
+        part = Math.abs(part);
+        whole = Math.abs(whole);
+        if (amount < 0 || part < 0 || whole < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+
+        // 128-bit product hi:lo from 32-bit halves
+        long a1 = amount >>> 32;
+        long a0 = amount & 0xFFFFFFFFL;
+        long b1 = part >>> 32;
+        long b0 = part & 0xFFFFFFFFL;
+        long low = a0 * b0;
+        long cross1 = a0 * b1;
+        long cross2 = a1 * b0;
+        long mid = (low >>> 32) + (cross1 & 0xFFFFFFFFL) + (cross2 & 0xFFFFFFFFL);
+        long lo = (mid << 32) | (low & 0xFFFFFFFFL);
+        long hi = a1 * b1 + (cross1 >>> 32) + (cross2 >>> 32) + (mid >>> 32);
+        if (hi >= whole) {
+            throw new ArithmeticException("long overflow");
+        }
+
+        // Shift-subtract division. The remainder stays below whole, so after each shift one subtraction
+        // brings it back; a set sign bit means it passed 2^63 and is certainly past whole
+        long remainder = hi;
+        long quotient = 0;
+        for (int bit = 63; bit >= 0; bit--) {
+            remainder = (remainder << 1) | ((lo >>> bit) & 1);
+            quotient <<= 1;
+            if (remainder < 0 || remainder >= whole) {
+                remainder -= whole;
+                quotient |= 1;
+            }
+        }
+        if (quotient < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        if (remainder >= whole - remainder) {
+            quotient = Math.addExact(quotient, 1);
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    /**
+     * Compute a * b / divisor exactly without a 128-bit intermediate.
+     * The divisor must be positive and small enough that divisor * divisor fits in a long.
+     */
+    static long mulDiv(long a, long b, long divisor) {
+        boolean negative = (a < 0) != (b < 0);
+        a = Math.abs(a);
+        b = Math.abs(b);
+        if (a < 0 || b < 0) {
+            // Math.abs(Long.MIN_VALUE) stays negative
+            throw new ArithmeticException("long overflow");
+        }
+
+        // a = aq*d + ar and b = bq*d + br, so a*b/d = aq*b + ar*bq + ar*br/d
+        long aq = a / divisor;
+        long ar = a % divisor;
+        long bq = b / divisor;
+        long br = b % divisor;
+        long tail = ar * br;
+
+        long result = Math.addExact(Math.multiplyExact(aq, b), Math.multiplyExact(ar, bq));
+        result = Math.addExact(result, tail / divisor);
+        if ((tail % divisor) * 2 >= divisor) {
+            result = Math.addExact(result, 1);
+        }
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.cryptoapplication.utils;
+
+import java.util.Arrays;
+
+/**
+ * Formats prices, percentages and quantities into a reusable char buffer, for binds that run
+ * while a list scrolls. Unlike String.format or DecimalFormat, nothing is allocated per call.
+ * Hand the result to {@code TextView.setText(chars(), 0, length())}. The TextView keeps the
+ * array rather than copying it, so each TextView needs its own formatter.
+ * Output is locale-independent ("$1,234.56", "+2.50%"), matching the dollar amounts shown
+ * everywhere else in the app.
+ * Not thread safe.
+ */
+public final class PriceFormatter {
+
+    // Sub-cent prices show this many significant digits: 0.00001234, not 0.00
+    private static final int SIGNIFICANT_DIGITS = 4;
+    private static final int MAX_DECIMALS = 12;
+    // Past this, scaling by 10^decimals no longer fits in a long
+    private static final double MAX_FIXED = 9.0e15;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DECIMALS + 1];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private char[] buffer = new char[32];
+    private int length;
+
+    /**
+     * Start a new value; the append methods below add to whatever is in the buffer
+     */
+    public PriceFormatter reset() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Dollar price with precision that follows its size: $1,234.56, $0.5432, $0.00001234
+     */
+    public PriceFormatter price(double usd) {
+        if (!isFinite(usd)) {
+            return append("--");
+        }
+        if (usd < 0) {
+            append('-');
+        }
+        append('$');
+        return fixed(Math.abs(usd), priceDecimals(Math.abs(usd)), false);
+    }
+
+    /**
+     * Dollar amount to the cent with a leading sign, e.g. +$12.30 or -$4.00
+     */
+    public PriceFormatter signedUsd(double usd) {
+        if (!isFinite(usd)) {
+            return append("--");
+        }
+        long cents = Math.round(Math.abs(usd) * 100);
+        append(usd < 0 && cents != 0 ? '-' : '+').append('$');
+        return fixed(Math.abs(usd), 2, false);
+    }
+
+    /**
+     * Dollar amount to the cent, e.g. $1,234.50
+     */
+    public PriceFormatter usd(double usd) {
+        if (!isFinite(usd)) {
+            return append("--");
+        }
+        long cents = Math.round(Math.abs(usd) * 100);
+        if (usd < 0 && cents != 0) {
+            append('-');
+        }
+        append('$');
+        return fixed(Math.abs(usd), 2, false);
+    }
+
+    /**
+     * Percentage to two places with a leading sign, e.g. +2.50% or -0.31%
+     */
+    public PriceFormatter percent(double percent) {
+        if (!isFinite(percent)) {
+            return append("--");
+        }
+        long hundredths = Math.round(Math.abs(percent) * 100);
+        append(percent < 0 && hundredths != 0 ? '-' : '+');
+        return fixed(Math.abs(percent), 2, false).append('%');
+    }
+
+    /**
+     * Coin quantity with up to maxDecimals places and trailing zeros dropped, e.g. 1,250.5
+     */
+    public PriceFormatter quantity(double amount, int maxDecimals) {
+        if (!isFinite(amount)) {
+            return append("--");
+        }
+        int decimals = Math.max(0, Math.min(maxDecimals, MAX_DECIMALS));
+        if (amount < 0 && Math.round(Math.abs(amount) * POWERS_OF_TEN[decimals]) != 0) {
+            append('-');
+        }
+        return fixed(Math.abs(amount), decimals, true);
+    }
+
+    public PriceFormatter append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+        return this;
+    }
+
+    public PriceFormatter append(String text) {
+        if (text != null) {
+            ensureCapacity(text.length());
+            text.getChars(0, text.length(), buffer, length);
+            length += text.length();
+        }
+        return this;
+    }
+
+    /**
+     * @return The buffer itself, valid up to {@link #length()} until the next call
+     */
+    public char[] chars() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    static int priceDecimals(double abs) {
+        int decimals = magnitudeDecimals(abs);
+        // 0.999999 rounds up to 1.0000; show it the way 1.00 is shown
+        double rounded = Math.round(abs * POWERS_OF_TEN[decimals]) / (double) POWERS_OF_TEN[decimals];
+        return Math.min(decimals, magnitudeDecimals(rounded));
+    }
+
+    private static int magnitudeDecimals(double abs) {
+        if (abs >= 1 || abs == 0) {
+            return 2;
+        }
+        if (abs >= 0.01) {
+            return 4;
+        }
+        // First significant digit is at 10^exponent, e.g. -5 for 0.00001234
+        int exponent = (int) Math.floor(Math.log10(abs));
+        return Math.min(MAX_DECIMALS, -exponent + SIGNIFICANT_DIGITS - 1);
+    }
+
+    // Non-negative value, rounded half up to the given decimals, with thousands separators
+    private PriceFormatter fixed(double value, int decimals, boolean trimZeros) {
+        while (decimals > 0 && value * POWERS_OF_TEN[decimals] >= MAX_FIXED) {
+            decimals--;
+        }
+        if (value >= MAX_FIXED) {
+            // Beyond any real price; skip the digits rather than overflow
+            return append("--");
+        }
+        long scaled = Math.round(value * POWERS_OF_TEN[decimals]);
+        long whole = scaled / POWERS_OF_TEN[decimals];
+        long fraction = scaled % POWERS_OF_TEN[decimals];
+
+        appendGrouped(whole);
+        if (trimZeros) {
+            while (decimals > 0 && fraction % 10 == 0) {
+                fraction /= 10;
+                decimals--;
+            }
+        }
+        if (decimals > 0) {
+            ensureCapacity(decimals + 1);
+            buffer[length++] = '.';
+            for (int i = length + decimals - 1; i >= length; i--) {
+                buffer[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            length += decimals;
+        }
+        return this;
+    }
+
+    private void appendGrouped(long whole) {
+        int digits = 1;
+        for (long rest = whole / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int chars = digits + (digits - 1) / 3;
+        ensureCapacity(chars);
+        int i = length + chars - 1;
+        for (int d = 0; d < digits; d++) {
+            if (d > 0 && d % 3 == 0) {
+                buffer[i--] = ',';
+            }
+            buffer[i--] = (char) ('0' + whole % 10);
+            whole /= 10;
+        }
+        length += chars;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+}
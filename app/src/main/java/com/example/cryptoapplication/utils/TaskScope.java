@@ -0,0 +1,190 @@
+package com.example.cryptoapplication.utils;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background work owned by a screen. Everything launched here is cancelled when the owner
+ * is destroyed. Results posted back through {@link Task#post} or {@link #post} are dropped
+ * once their task is cancelled or the scope is closed, so a late fetch never touches the
+ * views of an Activity that is gone.
+ * Cancellation is cooperative: a task that has not started is skipped when its turn comes,
+ * and one that is running sees {@link Task#isCancelled()} and runs its cancel hooks, e.g.
+ * to abort an HTTP call.
+ */
+public final class TaskScope implements DefaultLifecycleObserver {
+
+    /**
+     * Work run on a background thread; check the task between steps and post results through it
+     */
+    public interface Work {
+        void run(Task task);
+    }
+
+    private final Executor mainThread;
+    private final Set<Task> active = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean closed;
+
+    TaskScope(Executor mainThread) {
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * @return A scope that closes when owner is destroyed
+     */
+    public static TaskScope of(LifecycleOwner owner) {
+        TaskScope scope = new TaskScope(AppExecutors.get().mainThread());
+        owner.getLifecycle().addObserver(scope);
+        return scope;
+    }
+
+    /**
+     * Run work on executor, e.g. one of the {@link AppExecutors} pools.
+     * @return Handle to cancel the work; already cancelled if the scope is closed or the pool is full
+     */
+    public Task launch(Executor executor, Work work) {
+        Task task = new Task();
+        active.add(task);
+        // Checked after adding, so a close() running concurrently either sees the task or is seen here
+        if (closed) {
+            task.cancel();
+            return task;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!task.isCancelled()) {
+                        work.run(task);
+                    }
+                } finally {
+                    active.remove(task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            e.printStackTrace();
+            task.cancel();
+        }
+        return task;
+    }
+
+    /**
+     * Run action on the main thread unless the scope has closed by then
+     */
+    public void post(Runnable action) {
+        if (closed) {
+            return;
+        }
+        mainThread.execute(() -> {
+            if (!closed) {
+                action.run();
+            }
+        });
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Cancel every running task and drop pending posts; later launches are cancelled immediately
+     */
+    public void close() {
+        closed = true;
+        for (Task task : active) {
+            task.cancel();
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        close();
+        owner.getLifecycle().removeObserver(this);
+    }
+
+    /**
+     * Handle to one launched piece of work
+     */
+    public final class Task {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        // Guarded by this; null once the task has been cancelled
+        private List<Runnable> cancelHooks = new ArrayList<>();
+
+        private Task() {}
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Stop the work: it is skipped if it has not started, its cancel hooks run, and
+         * its pending posts are dropped. Safe to call from any thread, more than once.
+         */
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            active.remove(this);
+            List<Runnable> hooks;
+            synchronized (this) {
+                hooks = cancelHooks;
+                cancelHooks = null;
+            }
+            for (Runnable hook : hooks) {
+                try {
+                    hook.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Run hook when the task is cancelled, or right away if it already is.
+         * Hooks run on the cancelling thread, often the main thread, so keep them short.
+         */
+        public void onCancel(Runnable hook) {
+            synchronized (this) {
+                if (cancelHooks != null) {
+                    cancelHooks.add(hook);
+                    return;
+                }
+            }
+            hook.run();
+        }
+
+        /**
+         * Forget a hook once what it would cancel has finished
+         */
+        public void removeOnCancel(Runnable hook) {
+            synchronized (this) {
+                if (cancelHooks != null) {
+                    cancelHooks.remove(hook);
+                }
+            }
+        }
+
+        /**
+         * Run action on the main thread unless this task is cancelled by then
+         */
+        public void post(Runnable action) {
+            if (isCancelled()) {
+                return;
+            }
+            mainThread.execute(() -> {
+                if (!isCancelled() && !closed) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
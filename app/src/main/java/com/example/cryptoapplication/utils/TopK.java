@@ -0,0 +1,108 @@
+package com.example.cryptoapplication.utils;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Bounded-heap top-K selection over an indexed numeric column, e.g. a MarketSnapshot field.
+ * Runs in O(n log k) and allocates only the k-slot result, which doubles as the heap.
+ * Equal values keep index order, so ties stay in market-cap rank.
+ */
+public final class TopK {
+
+    private TopK() {}
+
+    /**
+     * Indices of the k largest values, largest first
+     * @param n Number of rows
+     * @param k Maximum results
+     * @param key Value of row i
+     * @param filter Rows to consider, or null for all
+     */
+    public static int[] largest(int n, int k, IntToDoubleFunction key, IntPredicate filter) {
+        return select(n, k, key, true, filter);
+    }
+
+    /**
+     * Indices of the k smallest values, smallest first
+     * @param n Number of rows
+     * @param k Maximum results
+     * @param key Value of row i
+     * @param filter Rows to consider, or null for all
+     */
+    public static int[] smallest(int n, int k, IntToDoubleFunction key, IntPredicate filter) {
+        return select(n, k, key, false, filter);
+    }
+
+    private static int[] select(int n, int k, IntToDoubleFunction key, boolean descending, IntPredicate filter) {
+        if (k <= 0 || n <= 0) {
+            return new int[0];
+        }
+        // The heap keeps the worst of the current top k at its root, ready to be evicted
+        int[] heap = new int[Math.min(k, n)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (filter != null && !filter.test(i)) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(heap, size++, key, descending);
+            } else if (better(i, heap[0], key, descending)) {
+                heap[0] = i;
+                siftDown(heap, 0, size, key, descending);
+            }
+        }
+
+        // Heap sort in place: moving the root to the end each time leaves the best first
+        for (int end = size - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(heap, 0, end, key, descending);
+        }
+        return size == heap.length ? heap : Arrays.copyOf(heap, size);
+    }
+
+    // True if row a ranks ahead of row b
+    private static boolean better(int a, int b, IntToDoubleFunction key, boolean descending) {
+        int cmp = Double.compare(key.applyAsDouble(a), key.applyAsDouble(b));
+        if (cmp == 0) {
+            return a < b;
+        }
+        return descending ? cmp > 0 : cmp < 0;
+    }
+
+    private static void siftUp(int[] heap, int pos, IntToDoubleFunction key, boolean descending) {
+        int row = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!better(heap[parent], row, key, descending)) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = row;
+    }
+
+    private static void siftDown(int[] heap, int pos, int size, IntToDoubleFunction key, boolean descending) {
+        int row = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(heap[child], heap[child + 1], key, descending)) {
+                child++;
+            }
+            if (!better(row, heap[child], key, descending)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = row;
+    }
+}
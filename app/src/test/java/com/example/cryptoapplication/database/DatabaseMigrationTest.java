@@ -0,0 +1,138 @@
+package com.example.cryptoapplication.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseMigrationTest {
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private void insertVersion8User(String email, Double balance) {
+        db.execSQL("INSERT INTO " + CryptoDatabaseContract.UserEntry.TABLE_NAME + " (" +
+                CryptoDatabaseContract.UserEntry.COLUMN_EMAIL + ", " +
+                CryptoDatabaseContract.UserEntry.COLUMN_USERNAME + ", " +
+                CryptoDatabaseContract.UserEntry.COLUMN_PASSWORD_HASH + ", " +
+                CryptoDatabaseContract.UserEntry.COLUMN_BALANCE + ", " +
+                CryptoDatabaseContract.UserEntry.COLUMN_CREATED_AT + ") VALUES (?, 'user', 'hash', ?, 0)",
+                new Object[]{ email, balance });
+    }
+
+    private long balanceUnits(String email) {
+        Cursor c = db.rawQuery("SELECT " + CryptoDatabaseContract.UserEntry.COLUMN_BALANCE_UNITS +
+                " FROM " + CryptoDatabaseContract.UserEntry.TABLE_NAME +
+                " WHERE " + CryptoDatabaseContract.UserEntry.COLUMN_EMAIL + " = ?", new String[]{ email });
+        try {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testBalanceUnitsBackfilledFromRealBalance() {
+        // users as it was at version 8: a REAL balance and no fixed-point column
+        db.execSQL("CREATE TABLE " + CryptoDatabaseContract.UserEntry.TABLE_NAME + " (" +
+                CryptoDatabaseContract.UserEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                CryptoDatabaseContract.UserEntry.COLUMN_EMAIL + " TEXT UNIQUE NOT NULL, " +
+                CryptoDatabaseContract.UserEntry.COLUMN_USERNAME + " TEXT NOT NULL, " +
+                CryptoDatabaseContract.UserEntry.COLUMN_PASSWORD_HASH + " TEXT NOT NULL, " +
+                CryptoDatabaseContract.UserEntry.COLUMN_BALANCE + " REAL DEFAULT 0, " +
+                CryptoDatabaseContract.UserEntry.COLUMN_CREATED_AT + " INTEGER NOT NULL)");
+        insertVersion8User("rich@example.com", 1234.56);
+        insertVersion8User("cents@example.com", 0.1);
+        insertVersion8User("null@example.com", null);
+
+        new DatabaseMigration.Migration8To9().migrate(db);
+
+        // Rounded to the nearest unit, not truncated below it by binary floating point
+        assertEquals(FixedPoint.fromFiat(1234.56), balanceUnits("rich@example.com"));
+        assertEquals(FixedPoint.fromFiat(0.1), balanceUnits("cents@example.com"));
+        assertEquals(0, balanceUnits("null@example.com"));
+
+        Cursor holdings = db.rawQuery("SELECT COUNT(*) FROM " + CryptoDatabaseContract.HoldingsEntry.TABLE_NAME, null);
+        assertTrue(holdings.moveToFirst());
+        assertEquals(0, holdings.getInt(0));
+        holdings.close();
+    }
+
+    private void insertCachedCoin(String coinId, String symbol, String name) {
+        db.execSQL("INSERT INTO " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + " (" +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + ", " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_SYMBOL + ", " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME + ") VALUES (?, ?, ?)",
+                new Object[]{ coinId, symbol, name });
+    }
+
+    private List<String> match(String expression) {
+        List<String> ids = new ArrayList<>();
+        Cursor c = db.rawQuery("SELECT c." + CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID +
+                " FROM " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME +
+                " JOIN " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + " c ON c." +
+                CryptoDatabaseContract.CoinCacheEntry._ID + " = docid" +
+                " WHERE " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + " MATCH ?" +
+                " ORDER BY c." + CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID, new String[]{ expression });
+        while (c.moveToNext()) {
+            ids.add(c.getString(0));
+        }
+        c.close();
+        return ids;
+    }
+
+    @Test
+    public void testSearchIndexBuiltFromExistingCache() {
+        db.execSQL("CREATE TABLE " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + " (" +
+                CryptoDatabaseContract.CoinCacheEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + " TEXT UNIQUE NOT NULL, " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_SYMBOL + " TEXT NOT NULL, " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME + " TEXT NOT NULL)");
+        insertCachedCoin("bitcoin", "btc", "Bitcoin");
+        insertCachedCoin("bitcoin-cash", "bch", "Bitcoin Cash");
+        insertCachedCoin("ethereum", "eth", "Ethereum");
+
+        new DatabaseMigration.Migration10To11().migrate(db);
+
+        // Coins cached before version 11 are found through the rebuilt index
+        assertEquals(Arrays.asList("bitcoin", "bitcoin-cash"), match("bitc*"));
+        assertEquals(Arrays.asList("bitcoin-cash"), match("bch*"));
+
+        // and later writes reach it through the triggers
+        insertCachedCoin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin");
+        db.execSQL("UPDATE " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + " SET " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_NAME + " = 'Ether' WHERE " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + " = 'ethereum'");
+        db.execSQL("DELETE FROM " + CryptoDatabaseContract.CoinCacheEntry.TABLE_NAME + " WHERE " +
+                CryptoDatabaseContract.CoinCacheEntry.COLUMN_COIN_ID + " = 'bitcoin-cash'");
+        assertEquals(Arrays.asList("bitcoin", "wrapped-bitcoin"), match("bitcoin*"));
+        assertEquals(Arrays.asList("ethereum"), match("name:ether"));
+        db.execSQL("INSERT INTO " + CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + "(" +
+                CryptoDatabaseContract.CoinSearchEntry.TABLE_NAME + ") VALUES ('integrity-check')");
+    }
+}
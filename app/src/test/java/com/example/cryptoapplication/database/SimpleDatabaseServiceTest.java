@@ -0,0 +1,144 @@
+package com.example.cryptoapplication.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.cryptoapplication.models.ConsolidatedAsset;
+import com.example.cryptoapplication.models.User;
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SimpleDatabaseServiceTest {
+
+    private Context context;
+    private CryptoDatabaseManager dbManager;
+    private SharedPreferences tradingPrefs;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        dbManager = CryptoDatabaseManager.getInstance(context);
+        tradingPrefs = context.getSharedPreferences("trading_data", Context.MODE_PRIVATE);
+
+        User user = new User();
+        user.setUsername("holder");
+        user.setEmail("holder@example.com");
+        user.setPassword("hash");
+        user.setCreatedAt(System.currentTimeMillis());
+        userId = dbManager.getUserDao().insert(user);
+        assertTrue(userId > 0);
+    }
+
+    @After
+    public void tearDown() {
+        SimpleDatabaseService.closeInstance();
+    }
+
+    @Test
+    public void testLegacyWalletMovesIntoTables() {
+        tradingPrefs.edit()
+                .putLong("balance_units_" + userId, FixedPoint.fromFiat(250))
+                // Older float entries lose to the fixed-point ones for the same key
+                .putFloat("user_balance_" + userId, 1f)
+                .putFloat("holdings_" + userId + "_bitcoin", 0.5f)
+                .putLong("holding_units_" + userId + "_ethereum", FixedPoint.fromQuantity(2))
+                .putFloat("holdings_" + userId + "_ethereum", 9f)
+                .putString("tx_" + userId + "_1000", "bitcoin|0.5|20000|BUY|1000")
+                .commit();
+
+        SimpleDatabaseService.getInstance(context);
+
+        assertEquals(FixedPoint.fromFiat(250), dbManager.getUserDao().getBalanceUnits(userId));
+        assertEquals(FixedPoint.fromQuantity(0.5), dbManager.getPortfolioDao().getHoldingUnits(userId, "bitcoin"));
+        assertEquals(FixedPoint.fromQuantity(2), dbManager.getPortfolioDao().getHoldingUnits(userId, "ethereum"));
+        assertEquals(1, dbManager.getPortfolioDao().getTransactionHistory(userId).size());
+
+        // Cost basis and trade count are rebuilt from the imported ledger
+        List<ConsolidatedAsset> holdings = dbManager.getPortfolioDao().getHoldings(userId);
+        assertEquals(2, holdings.size());
+        for (ConsolidatedAsset asset : holdings) {
+            if ("bitcoin".equals(asset.getCoinId())) {
+                assertEquals(FixedPoint.fromFiat(10000), asset.getCostBasisUnits());
+                assertEquals(1, asset.getTransactionCount());
+            } else {
+                assertEquals(0, asset.getCostBasisUnits());
+                assertEquals(0, asset.getTransactionCount());
+            }
+        }
+
+        assertTrue(tradingPrefs.getBoolean("wallet_migrated_to_db", false));
+        assertFalse(tradingPrefs.contains("balance_units_" + userId));
+        assertFalse(tradingPrefs.contains("user_balance_" + userId));
+        assertFalse(tradingPrefs.contains("holdings_" + userId + "_bitcoin"));
+        assertFalse(tradingPrefs.contains("holding_units_" + userId + "_ethereum"));
+        assertFalse(tradingPrefs.contains("holdings_" + userId + "_ethereum"));
+    }
+
+    @Test
+    public void testWalletMigrationRunsOnce() {
+        tradingPrefs.edit().putLong("balance_units_" + userId, FixedPoint.fromFiat(250)).commit();
+        SimpleDatabaseService.getInstance(context);
+        SimpleDatabaseService.closeInstance();
+
+        // A stray entry written after the move must not overwrite the database
+        tradingPrefs.edit().putLong("balance_units_" + userId, FixedPoint.fromFiat(5)).commit();
+        dbManager = CryptoDatabaseManager.getInstance(context);
+        SimpleDatabaseService.getInstance(context);
+
+        assertEquals(FixedPoint.fromFiat(250), dbManager.getUserDao().getBalanceUnits(userId));
+    }
+
+    @Test
+    public void testRejectedWalletEntriesAreSetAside() {
+        long missingUser = userId + 100;
+        tradingPrefs.edit()
+                .putLong("balance_units_" + userId, FixedPoint.fromFiat(250))
+                .putLong("balance_units_" + missingUser, FixedPoint.fromFiat(75))
+                .putFloat("holdings_" + missingUser + "_bitcoin", 0.25f)
+                .commit();
+
+        SimpleDatabaseService.getInstance(context);
+
+        assertEquals(FixedPoint.fromFiat(250), dbManager.getUserDao().getBalanceUnits(userId));
+        assertEquals(0, dbManager.getPortfolioDao().getHoldingUnits(missingUser, "bitcoin"));
+        // Neither dropped nor retried: kept under a rejected_ key and the migration is done
+        assertFalse(tradingPrefs.contains("balance_units_" + missingUser));
+        assertFalse(tradingPrefs.contains("holdings_" + missingUser + "_bitcoin"));
+        assertEquals(FixedPoint.fromFiat(75), tradingPrefs.getLong("rejected_balance_units_" + missingUser, 0));
+        assertEquals(0.25f, tradingPrefs.getFloat("rejected_holdings_" + missingUser + "_bitcoin", 0f), 0f);
+        assertTrue(tradingPrefs.getBoolean("wallet_migrated_to_db", false));
+    }
+
+    @Test
+    public void testRejectedLedgerEntryIsSetAside() {
+        long missingUser = userId + 100;
+        tradingPrefs.edit()
+                .putString("tx_" + userId + "_1000", "bitcoin|0.5|20000|BUY|1000")
+                .putString("tx_" + missingUser + "_2000", "ethereum|1|600|BUY|2000")
+                .commit();
+
+        SimpleDatabaseService.getInstance(context);
+
+        assertEquals(1, dbManager.getPortfolioDao().getTransactionHistory(userId).size());
+        assertFalse(tradingPrefs.contains("tx_" + userId + "_1000"));
+        // The foreign key rejects it; it is set aside and the migration does not run again
+        assertFalse(tradingPrefs.contains("tx_" + missingUser + "_2000"));
+        assertEquals("ethereum|1|600|BUY|2000", tradingPrefs.getString("rejected_tx_" + missingUser + "_2000", null));
+        assertTrue(tradingPrefs.getBoolean("ledger_migrated_to_db", false));
+    }
+}
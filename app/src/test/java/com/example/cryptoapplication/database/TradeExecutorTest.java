@@ -0,0 +1,107 @@
+package com.example.cryptoapplication.database;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.cryptoapplication.models.User;
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class TradeExecutorTest {
+
+    private CryptoDatabaseManager dbManager;
+    private TradeExecutor executor;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        dbManager = CryptoDatabaseManager.getInstance(ApplicationProvider.getApplicationContext());
+        executor = dbManager.getTradeExecutor();
+
+        User user = new User();
+        user.setUsername("trader");
+        user.setEmail("trader@example.com");
+        user.setPassword("hash");
+        user.setCreatedAt(System.currentTimeMillis());
+        userId = dbManager.getUserDao().insert(user);
+        assertTrue(userId > 0);
+        assertTrue(executor.adjustBalance(userId, FixedPoint.fromFiat(1000)).isSuccess());
+    }
+
+    @After
+    public void tearDown() {
+        CryptoDatabaseManager.closeInstance();
+    }
+
+    private static TradeExecutor.Trade buy(String coinId, double quantity, double price) {
+        return TradeExecutor.Trade.buy(coinId, FixedPoint.fromQuantity(quantity), FixedPoint.fromFiat(price));
+    }
+
+    private static TradeExecutor.Trade sell(String coinId, double quantity, double price) {
+        return TradeExecutor.Trade.sell(coinId, FixedPoint.fromQuantity(quantity), FixedPoint.fromFiat(price));
+    }
+
+    private void assertNothingWritten() {
+        assertEquals(FixedPoint.fromFiat(1000), dbManager.getUserDao().getBalanceUnits(userId));
+        assertEquals(0, dbManager.getPortfolioDao().getHoldingUnits(userId, "bitcoin"));
+        assertEquals(0, dbManager.getPortfolioDao().getHoldingUnits(userId, "ethereum"));
+        assertTrue(dbManager.getPortfolioDao().getTransactionHistory(userId).isEmpty());
+    }
+
+    @Test
+    public void testBatchRollsBackWhenFundsRunOut() {
+        // The first buy fits the balance on its own; the second does not
+        TradeResult result = executor.executeAll(userId, Arrays.asList(
+                buy("bitcoin", 0.01, 50000), buy("ethereum", 1, 600)));
+
+        assertEquals(TradeResult.TradeStatus.INSUFFICIENT_FUNDS, result.getStatus());
+        assertNothingWritten();
+    }
+
+    @Test
+    public void testBatchRollsBackWhenHoldingsRunOut() {
+        TradeResult result = executor.executeAll(userId, Arrays.asList(
+                buy("bitcoin", 0.01, 50000), sell("ethereum", 1, 600)));
+        assertEquals(TradeResult.TradeStatus.INSUFFICIENT_HOLDINGS, result.getStatus());
+        assertNothingWritten();
+
+        // A sell sees the buys before it in the batch, but no more than they bought
+        result = executor.executeAll(userId, Arrays.asList(
+                buy("bitcoin", 0.01, 50000), sell("bitcoin", 0.02, 50000)));
+        assertEquals(TradeResult.TradeStatus.INSUFFICIENT_HOLDINGS, result.getStatus());
+        assertNothingWritten();
+    }
+
+    @Test
+    public void testBatchCommitsEveryTrade() {
+        TradeResult result = executor.executeAll(userId, Arrays.asList(
+                buy("bitcoin", 0.01, 50000), buy("ethereum", 0.5, 600), sell("bitcoin", 0.004, 50000)));
+
+        assertTrue(result.isSuccess());
+        assertEquals(FixedPoint.fromFiat(400), result.getBalanceUnits());
+        assertEquals(FixedPoint.fromFiat(400), dbManager.getUserDao().getBalanceUnits(userId));
+        assertEquals(FixedPoint.fromQuantity(0.006), dbManager.getPortfolioDao().getHoldingUnits(userId, "bitcoin"));
+        assertEquals(FixedPoint.fromQuantity(0.5), dbManager.getPortfolioDao().getHoldingUnits(userId, "ethereum"));
+        assertEquals(3, dbManager.getPortfolioDao().getTransactionHistory(userId).size());
+    }
+
+    @Test
+    public void testUnknownUserWritesNothing() {
+        TradeResult result = executor.execute(userId + 1, buy("bitcoin", 0.01, 50000));
+
+        assertEquals(TradeResult.TradeStatus.FAILURE, result.getStatus());
+        assertTrue(dbManager.getPortfolioDao().getTransactionHistory(userId + 1).isEmpty());
+        assertNothingWritten();
+    }
+}
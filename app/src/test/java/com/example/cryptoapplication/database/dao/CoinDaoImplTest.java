@@ -0,0 +1,151 @@
+package com.example.cryptoapplication.database.dao;
+
+import android.database.Cursor;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.cryptoapplication.database.CryptoDatabaseHelper;
+import com.example.cryptoapplication.models.CoinModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// Native SQLite, so FTS4 and UPSERT behave as on a device
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class CoinDaoImplTest {
+
+    private CryptoDatabaseHelper dbHelper;
+    private CoinDaoImpl coinDao;
+
+    @Before
+    public void setUp() {
+        dbHelper = CryptoDatabaseHelper.getInstance(ApplicationProvider.getApplicationContext());
+        coinDao = new CoinDaoImpl(dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        CryptoDatabaseHelper.closeInstance();
+    }
+
+    private static CoinModel coin(String id, String symbol, String name, double price, double marketCap, String lastUpdated) {
+        CoinModel coin = new CoinModel(id, symbol, name, price, "", 0.0);
+        coin.setMarketCap(marketCap);
+        coin.setLastUpdated(lastUpdated);
+        return coin;
+    }
+
+    private List<String> search(String query) {
+        List<String> ids = new ArrayList<>();
+        for (CoinModel coin : coinDao.searchByName(query)) {
+            ids.add(coin.getId());
+        }
+        return ids;
+    }
+
+    // Every write to the index adds a segment, so an untouched index keeps its count
+    private int indexSegments() {
+        Cursor c = dbHelper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM coin_search_segdir", null);
+        try {
+            assertTrue(c.moveToFirst());
+            return c.getInt(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    // Throws if the index no longer matches coin_cache
+    private void assertIndexIntact() {
+        dbHelper.getWritableDatabase().execSQL("INSERT INTO coin_search(coin_search) VALUES ('integrity-check')");
+    }
+
+    private void assertSearchFollowsCache() {
+        assertEquals(5, coinDao.upsertAll(Arrays.asList(
+                coin("bitcoin", "btc", "Bitcoin", 50000, 1000, "t1"),
+                coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 50000, 100, "t1"),
+                coin("bitcoin-cash", "bch", "Bitcoin Cash", 300, 10, "t1"),
+                coin("ethereum", "eth", "Ethereum", 3000, 500, "t1"),
+                coin("steth", "steth", "Lido Staked Ether", 3000, 50, "t1"))));
+
+        // Names starting with the query come first, ahead of a bigger market cap
+        assertEquals(Arrays.asList("bitcoin", "bitcoin-cash", "wrapped-bitcoin"), search("bitcoin"));
+        assertEquals(Collections.singletonList("bitcoin"), search("BTC"));
+        assertEquals(Arrays.asList("ethereum", "steth"), search("ether"));
+        assertEquals(Collections.singletonList("steth"), search("lido eth"));
+
+        // A row with the same last_updated is skipped entirely
+        assertEquals(0, coinDao.upsertAll(Collections.singletonList(
+                coin("bitcoin", "btc", "Bitcoin", 51000, 1000, "t1"))));
+        assertEquals(50000, coinDao.searchByName("bitcoin").get(0).getCurrentPrice(), 0.0);
+
+        // A price refresh rewrites the row but leaves the index alone
+        int segments = indexSegments();
+        assertEquals(1, coinDao.upsertAll(Collections.singletonList(
+                coin("bitcoin", "btc", "Bitcoin", 52000, 1000, "t2"))));
+        assertEquals(segments, indexSegments());
+        assertEquals(52000, coinDao.searchByName("bitcoin").get(0).getCurrentPrice(), 0.0);
+
+        // A rename is re-indexed: the old word no longer matches, the new one does
+        assertEquals(1, coinDao.upsertAll(Collections.singletonList(
+                coin("steth", "steth", "Lido Staked ETH", 3000, 50, "t2"))));
+        assertEquals(Collections.singletonList("ethereum"), search("ether"));
+        assertEquals(Arrays.asList("ethereum", "steth"), search("eth"));
+
+        coinDao.delete(coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 0, 0, "t1"));
+        assertEquals(Arrays.asList("bitcoin", "bitcoin-cash"), search("bitcoin"));
+        assertTrue(search("wbtc").isEmpty());
+
+        assertIndexIntact();
+    }
+
+    @Test
+    public void testSearchFollowsUpsertRenameAndDelete() {
+        assertSearchFollowsCache();
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.Q)
+    public void testSearchFollowsCacheWithoutNativeUpsert() {
+        // Before Android 11 upsertAll falls back to UPDATE then INSERT OR IGNORE
+        assertSearchFollowsCache();
+    }
+
+    @Test
+    public void testQuerySyntaxIsNotPassedToMatch() {
+        coinDao.upsertAll(Collections.singletonList(coin("bitcoin", "btc", "Bitcoin", 50000, 1000, "t1")));
+
+        assertEquals(Collections.singletonList("bitcoin"), search("\"bitcoin"));
+        assertTrue(search("name:").isEmpty());
+        assertTrue(search(" * ").isEmpty());
+    }
+
+    @Test
+    public void testPrefixMatchAddsWildcardPerWord() {
+        assertEquals("bitc*", CoinDaoImpl.toPrefixMatch("bitc"));
+        assertEquals("bitcoin* ca*", CoinDaoImpl.toPrefixMatch("  Bitcoin   CA "));
+        assertEquals("wrapped* bitcoin*", CoinDaoImpl.toPrefixMatch("wrapped-bitcoin"));
+    }
+
+    @Test
+    public void testPrefixMatchDropsQuerySyntax() {
+        // Quotes, operators and column filters typed by the user are not passed to MATCH
+        assertEquals("btc* or* eth*", CoinDaoImpl.toPrefixMatch("\"btc\" OR eth*"));
+        assertEquals("name* x*", CoinDaoImpl.toPrefixMatch("name:x"));
+        assertEquals("", CoinDaoImpl.toPrefixMatch(" *-\" "));
+        assertEquals("", CoinDaoImpl.toPrefixMatch(null));
+    }
+}
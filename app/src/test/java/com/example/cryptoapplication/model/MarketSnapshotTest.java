@@ -0,0 +1,118 @@
+package com.example.cryptoapplication.model;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MarketSnapshotTest {
+
+    @Test
+    public void testColumnsMatchRows() {
+        CoinModel bitcoin = new CoinModel("bitcoin", "BTC", "Bitcoin", 50000.0, "", 2.5);
+        bitcoin.setMarketCap(1.0e12);
+        bitcoin.setTotalVolume(3.0e10);
+        bitcoin.setPriceChange24h(1200.0);
+        MarketSnapshot snapshot = MarketSnapshot.of(Arrays.asList(
+                bitcoin,
+                null,
+                new CoinModel("ethereum", "eth", "Ethereum", 3000.0, "", -1.0),
+                // Ranks shifted between pages; the first occurrence wins
+                new CoinModel("bitcoin", "btc", "Bitcoin", 1.0, "", 0.0)));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(0, snapshot.indexOf("bitcoin"));
+        assertEquals(1, snapshot.indexOf("ethereum"));
+        assertEquals(-1, snapshot.indexOf("solana"));
+        assertEquals("btc", snapshot.lowerSymbol(0));
+        assertEquals("bitcoin", snapshot.lowerName(0));
+        assertEquals(50000.0, snapshot.price(0), 0.0);
+        assertEquals(1200.0, snapshot.priceChange24h(0), 0.0);
+        assertEquals(2.5, snapshot.changePercentage24h(0), 0.0);
+        assertEquals(1.0e12, snapshot.marketCap(0), 0.0);
+        assertEquals(3.0e10, snapshot.volume(0), 0.0);
+        assertSame(bitcoin, snapshot.coin(0));
+    }
+
+    @Test
+    public void testShortUpdateOnlyReplacesItsRows() {
+        List<CoinModel> market = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            market.add(new CoinModel("coin" + i, "c" + i, "Coin " + i, i, "", 0.0));
+        }
+        MarketSnapshot paged = MarketSnapshot.of(market);
+
+        MarketSnapshot refreshed = paged.mergedWith(Collections.singletonList(
+                new CoinModel("coin5", "c5", "Coin 5", 99.0, "", 0.0)));
+
+        assertEquals(100, refreshed.size());
+        assertEquals(99.0, refreshed.price(5), 0.0);
+        assertEquals(6.0, refreshed.price(6), 0.0);
+        // The original snapshot is never modified
+        assertEquals(5.0, paged.price(5), 0.0);
+    }
+
+    private static CoinModel ranked(String id, double marketCap) {
+        CoinModel coin = new CoinModel(id, id, id, 1.0, "", 0.0);
+        coin.setMarketCap(marketCap);
+        return coin;
+    }
+
+    @Test
+    public void testShortUpdateKeepsMarketCapOrder() {
+        List<CoinModel> market = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            market.add(ranked("coin" + i, 1000 - i * 100));
+        }
+        MarketSnapshot paged = MarketSnapshot.of(market);
+
+        // coin8 climbs past coin2 and a coin the snapshot has never seen enters at the top
+        MarketSnapshot refreshed = paged.mergedWith(Arrays.asList(ranked("coin8", 850), ranked("newcomer", 2000)));
+
+        assertEquals(11, refreshed.size());
+        assertEquals(0, refreshed.indexOf("newcomer"));
+        assertEquals(1, refreshed.indexOf("coin0"));
+        assertEquals(2, refreshed.indexOf("coin1"));
+        assertEquals(3, refreshed.indexOf("coin8"));
+        assertEquals(4, refreshed.indexOf("coin2"));
+        assertEquals(10, refreshed.indexOf("coin9"));
+        for (int i = 1; i < refreshed.size(); i++) {
+            assertTrue(refreshed.marketCap(i - 1) >= refreshed.marketCap(i));
+        }
+    }
+
+    @Test
+    public void testPartialUpdateNeverReplaces() {
+        MarketSnapshot top = MarketSnapshot.of(Arrays.asList(ranked("bitcoin", 1000), ranked("ethereum", 500)));
+
+        // Later pages of a load whose first page failed, longer than the snapshot they land on
+        MarketSnapshot merged = top.withRows(Arrays.asList(ranked("coin251", 10), ranked("coin252", 9), ranked("coin253", 8)));
+
+        assertEquals(5, merged.size());
+        assertEquals(0, merged.indexOf("bitcoin"));
+        assertEquals(1, merged.indexOf("ethereum"));
+        assertEquals(4, merged.indexOf("coin253"));
+    }
+
+    @Test
+    public void testLongerUpdateReplacesSnapshot() {
+        MarketSnapshot top = MarketSnapshot.of(Collections.singletonList(
+                new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "", 0.0)));
+
+        MarketSnapshot replaced = top.mergedWith(Arrays.asList(
+                new CoinModel("ethereum", "eth", "Ethereum", 3000.0, "", 0.0),
+                new CoinModel("tether", "usdt", "Tether", 1.0, "", 0.0)));
+
+        assertEquals(2, replaced.size());
+        assertEquals(-1, replaced.indexOf("bitcoin"));
+        assertSame(MarketSnapshot.EMPTY, MarketSnapshot.of(null));
+        assertSame(top, top.mergedWith(Collections.emptyList()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cryptoapplication.network;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CoinModelTypeAdapterTest {
+
+    private static final String MARKETS_JSON = "[" +
+            "{\"id\":\"bitcoin\",\"symbol\":\"btc\",\"name\":\"Bitcoin\",\"image\":\"https://example.com/btc.png\"," +
+            "\"current_price\":50000.5,\"market_cap\":980000000000,\"market_cap_rank\":1," +
+            "\"fully_diluted_valuation\":1050000000000,\"total_volume\":25000000000," +
+            "\"high_24h\":51000,\"low_24h\":49000,\"price_change_24h\":1200.25," +
+            "\"price_change_percentage_24h\":2.46,\"market_cap_change_24h\":23000000000," +
+            "\"market_cap_change_percentage_24h\":2.4,\"circulating_supply\":19600000," +
+            "\"total_supply\":21000000,\"max_supply\":21000000,\"ath\":69000," +
+            "\"roi\":null,\"last_updated\":\"2024-01-01T00:00:00.000Z\"," +
+            "\"sparkline_in_7d\":{\"price\":[1.0,2.0,3.0]}}," +
+            "{\"id\":\"tether\",\"symbol\":\"usdt\",\"name\":\"Tether\",\"image\":\"https://example.com/usdt.png\"," +
+            "\"current_price\":1.0,\"market_cap\":95000000000,\"market_cap_rank\":3," +
+            "\"fully_diluted_valuation\":null,\"max_supply\":null,\"price_change_24h\":-0.0001," +
+            "\"price_change_percentage_24h\":-0.01,\"last_updated\":null}" +
+            "]";
+
+    private static List<CoinModel> readStreaming(CoinModelTypeAdapter adapter) throws Exception {
+        List<CoinModel> coins = new ArrayList<>();
+        assertEquals(2, adapter.readArray(new JsonReader(new StringReader(MARKETS_JSON)), coins::add));
+        return coins;
+    }
+
+    @Test
+    public void testMatchesReflectiveAdapter() throws Exception {
+        List<CoinModel> reflective = new Gson().fromJson(MARKETS_JSON, new TypeToken<List<CoinModel>>() {}.getType());
+        List<CoinModel> streaming = readStreaming(new CoinModelTypeAdapter());
+
+        assertEquals(reflective.size(), streaming.size());
+        for (int i = 0; i < reflective.size(); i++) {
+            CoinModel expected = reflective.get(i);
+            CoinModel actual = streaming.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getSymbol(), actual.getSymbol());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getImage(), actual.getImage());
+            assertEquals(expected.getCurrentPrice(), actual.getCurrentPrice(), 0.0);
+            assertEquals(expected.getMarketCap(), actual.getMarketCap(), 0.0);
+            assertEquals(expected.getMarketCapRank(), actual.getMarketCapRank());
+            assertEquals(expected.getFullyDilutedValuation(), actual.getFullyDilutedValuation(), 0.0);
+            assertEquals(expected.getTotalVolume(), actual.getTotalVolume(), 0.0);
+            assertEquals(expected.getHigh24h(), actual.getHigh24h(), 0.0);
+            assertEquals(expected.getLow24h(), actual.getLow24h(), 0.0);
+            assertEquals(expected.getPriceChange24h(), actual.getPriceChange24h(), 0.0);
+            assertEquals(expected.getPriceChangePercentage24h(), actual.getPriceChangePercentage24h(), 0.0);
+            assertEquals(expected.getMarketCapChange24h(), actual.getMarketCapChange24h(), 0.0);
+            assertEquals(expected.getMarketCapChangePercentage24h(), actual.getMarketCapChangePercentage24h(), 0.0);
+            assertEquals(expected.getCirculatingSupply(), actual.getCirculatingSupply(), 0.0);
+            assertEquals(expected.getTotalSupply(), actual.getTotalSupply(), 0.0);
+            assertEquals(expected.getMaxSupply(), actual.getMaxSupply(), 0.0);
+            assertEquals(expected.getLastUpdated(), actual.getLastUpdated());
+        }
+    }
+
+    @Test
+    public void testLeanModeSkipsExtendedFields() throws Exception {
+        CoinModel bitcoin = readStreaming(new CoinModelTypeAdapter(false)).get(0);
+
+        assertEquals("bitcoin", bitcoin.getId());
+        assertEquals(50000.5, bitcoin.getCurrentPrice(), 0.0);
+        assertEquals(1200.25, bitcoin.getPriceChange24h(), 0.0);
+        assertEquals(1, bitcoin.getMarketCapRank());
+        // Still read: MarketSnapshot ranks by them
+        assertEquals(25000000000.0, bitcoin.getTotalVolume(), 0.0);
+        assertEquals(2.4, bitcoin.getMarketCapChangePercentage24h(), 0.0);
+        assertEquals(0.0, bitcoin.getFullyDilutedValuation(), 0.0);
+        assertEquals(0.0, bitcoin.getMaxSupply(), 0.0);
+        assertNull(bitcoin.getLastUpdated());
+    }
+
+    @Test
+    public void testRegisteredGsonRoundTrips() {
+        Gson gson = RetrofitClient.createGson();
+        List<CoinModel> coins = gson.fromJson(MARKETS_JSON, new TypeToken<List<CoinModel>>() {}.getType());
+        List<CoinModel> again = gson.fromJson(gson.toJson(coins), new TypeToken<List<CoinModel>>() {}.getType());
+
+        assertEquals(2, again.size());
+        assertEquals("tether", again.get(1).getId());
+        assertEquals(-0.0001, again.get(1).getPriceChange24h(), 0.0);
+        assertEquals(21000000.0, again.get(0).getMaxSupply(), 0.0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.cryptoapplication.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    private long now;
+    private TokenBucket bucket;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        // 30 per minute = one every 2 seconds, bursts of 5
+        bucket = new TokenBucket(30, 5, () -> now);
+    }
+
+    @Test
+    public void testBurstThenWait() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+        assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.tryAcquire(0));
+
+        now += TimeUnit.SECONDS.toNanos(2);
+        assertEquals(0, bucket.tryAcquire(0));
+    }
+
+    @Test
+    public void testReserveHoldsBackLowPriorityCalls() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+        // Two tokens left: background with a reserve of 2 must wait, foreground still goes
+        assertTrue(bucket.tryAcquire(2) > 0);
+        assertEquals(0, bucket.tryAcquire(0));
+    }
+
+    @Test
+    public void testPauseBlocksEveryoneThenRefillsGradually() {
+        bucket.pauseFor(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(TimeUnit.SECONDS.toNanos(10), bucket.tryAcquire(0));
+
+        now += TimeUnit.SECONDS.toNanos(10);
+        // Emptied on pause, so only what refilled during the pause is available
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+        assertTrue(bucket.tryAcquire(0) > 0);
+    }
+}
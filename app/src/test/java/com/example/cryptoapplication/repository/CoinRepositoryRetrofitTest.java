@@ -1,8 +1,14 @@
 package com.example.cryptoapplication.repository;
 
+import com.example.cryptoapplication.database.dao.CoinDao;
 import com.example.cryptoapplication.models.CoinModel;
 import com.example.cryptoapplication.network.CoinGeckoApi;
+import com.example.cryptoapplication.utils.TaskScope;
 
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,6 +17,7 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -32,6 +39,11 @@ public class CoinRepositoryRetrofitTest {
     @Mock
     private Call<List<CoinModel>> mockCall;
     
+    @Mock
+    private CoinDao mockCoinDao;
+    
+    private long diskHitsBefore;
+    
     private CoinRepositoryRetrofit coinRepository;
 
     @Before
@@ -40,6 +52,178 @@ public class CoinRepositoryRetrofitTest {
         coinRepository = new CoinRepositoryRetrofit();
         // We would need to inject the mock API, but since it's a static method,
         // we'll test the actual implementation with mocked responses
+        CoinRepositoryRetrofit.invalidateCache();
+        diskHitsBefore = CoinRepositoryRetrofit.getCacheStats().diskHits;
+    }
+
+    @After
+    public void tearDown() {
+        CoinRepositoryRetrofit.onJoinedFetch = null;
+    }
+
+    @Test
+    public void testConcurrentGetCoinsShareOneRequest() throws Exception {
+        List<CoinModel> testCoins = Arrays.asList(
+            new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "https://example.com/bitcoin.png", 5.5)
+        );
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockCoinGeckoApi.getTopCoins(anyString(), anyInt(), anyString())).thenReturn(mockCall);
+        when(mockCall.execute()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Response.success(testCoins);
+        });
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi);
+
+        final int threadCount = 5;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        // Everyone but the caller running the request joins it
+        final CountDownLatch joined = new CountDownLatch(threadCount - 1);
+        CoinRepositoryRetrofit.onJoinedFetch = joined::countDown;
+        final AtomicReference<List<CoinModel>> lastResult = new AtomicReference<>();
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(() -> {
+                lastResult.set(repository.getCoins());
+                done.countDown();
+            }).start();
+        }
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(mockCall, times(1)).execute();
+        assertEquals("bitcoin", lastResult.get().get(0).getId());
+    }
+
+    @Test
+    public void testClosingScopeCancelsRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(mockCoinGeckoApi.getTopCoins(anyString(), anyInt(), anyString())).thenReturn(mockCall);
+        when(mockCall.execute()).thenAnswer(invocation -> {
+            started.countDown();
+            cancelled.await(5, TimeUnit.SECONDS);
+            throw new IOException("Canceled");
+        });
+        doAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).when(mockCall).cancel();
+        when(mockCall.isCanceled()).thenAnswer(invocation -> cancelled.getCount() == 0);
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi);
+        long failuresBefore = CoinRepositoryRetrofit.getCacheStats().networkFailures;
+
+        TaskScope scope = TaskScope.of(mockLifecycleOwner());
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<CoinModel>> result = new AtomicReference<>();
+        scope.launch(command -> new Thread(command).start(), task -> {
+            result.set(repository.getCoins(task));
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scope.close();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(mockCall).cancel();
+        assertTrue(result.get().isEmpty());
+        assertEquals(failuresBefore, CoinRepositoryRetrofit.getCacheStats().networkFailures);
+    }
+
+    @Test
+    public void testRequestKeptWhileAnotherCallerWaits() throws Exception {
+        List<CoinModel> testCoins = Arrays.asList(
+            new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "https://example.com/bitcoin.png", 5.5)
+        );
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockCoinGeckoApi.getTopCoins(anyString(), anyInt(), anyString())).thenReturn(mockCall);
+        when(mockCall.execute()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Response.success(testCoins);
+        });
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi);
+
+        AtomicReference<List<CoinModel>> plainResult = new AtomicReference<>();
+        Thread plainCaller = new Thread(() -> plainResult.set(repository.getCoins()));
+        plainCaller.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        TaskScope scope = TaskScope.of(mockLifecycleOwner());
+        CountDownLatch joined = new CountDownLatch(1);
+        CoinRepositoryRetrofit.onJoinedFetch = joined::countDown;
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<CoinModel>> taskResult = new AtomicReference<>();
+        TaskScope.Task task = scope.launch(command -> new Thread(command).start(), t -> {
+            taskResult.set(repository.getCoins(t));
+            done.countDown();
+        });
+        // Cancelled only once it is waiting on the plain caller's request, not on one of its own
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        task.cancel();
+
+        // The cancelled caller stops waiting; the request carries on for the other one
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(taskResult.get().isEmpty());
+        release.countDown();
+        plainCaller.join(5000);
+        verify(mockCoinGeckoApi, times(1)).getTopCoins(anyString(), anyInt(), anyString());
+        verify(mockCall, times(1)).execute();
+        verify(mockCall, never()).cancel();
+        assertEquals("bitcoin", plainResult.get().get(0).getId());
+    }
+
+    private static LifecycleOwner mockLifecycleOwner() {
+        LifecycleOwner owner = mock(LifecycleOwner.class);
+        when(owner.getLifecycle()).thenReturn(mock(Lifecycle.class));
+        return owner;
+    }
+
+    @Test
+    public void testRepeatCallsServedFromMemory() throws Exception {
+        List<CoinModel> testCoins = Arrays.asList(
+            new CoinModel("ethereum", "eth", "Ethereum", 3000.0, "https://example.com/ethereum.png", -2.3)
+        );
+        when(mockCoinGeckoApi.getTopCoins(anyString(), anyInt(), anyString())).thenReturn(mockCall);
+        when(mockCall.execute()).thenReturn(Response.success(testCoins));
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi);
+
+        assertEquals(1, repository.getCoins().size());
+        assertEquals(1, repository.getCoins().size());
+        verify(mockCall, times(1)).execute();
+
+        CoinRepositoryRetrofit.invalidateCache();
+        repository.getCoins();
+        verify(mockCall, times(2)).execute();
+    }
+
+    @Test
+    public void testColdStartServedFromDisk() throws Exception {
+        CoinModel bitcoin = new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "https://example.com/bitcoin.png", 5.5);
+        bitcoin.setCachedAt(System.currentTimeMillis());
+        when(mockCoinDao.getTopByMarketCap(anyInt())).thenReturn(new ArrayList<>(Arrays.asList(bitcoin)));
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi, mockCoinDao);
+
+        List<CoinModel> coins = repository.getCoins();
+
+        assertEquals("bitcoin", coins.get(0).getId());
+        verify(mockCoinGeckoApi, never()).getTopCoins(anyString(), anyInt(), anyString());
+        assertEquals(1, CoinRepositoryRetrofit.getCacheStats().diskHits - diskHitsBefore);
+    }
+
+    @Test
+    public void testExpiredDiskDataUsedWhenNetworkFails() throws Exception {
+        CoinModel bitcoin = new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "https://example.com/bitcoin.png", 5.5);
+        bitcoin.setCachedAt(System.currentTimeMillis() - 2 * CoinRepositoryRetrofit.DISK_TTL_MS);
+        when(mockCoinDao.getTopByMarketCap(anyInt())).thenReturn(new ArrayList<>(Arrays.asList(bitcoin)));
+        when(mockCoinGeckoApi.getTopCoins(anyString(), anyInt(), anyString())).thenReturn(mockCall);
+        when(mockCall.execute()).thenThrow(new IOException("offline"));
+        CoinRepositoryRetrofit repository = new CoinRepositoryRetrofit(mockCoinGeckoApi, mockCoinDao);
+
+        List<CoinModel> coins = repository.getCoins();
+
+        verify(mockCall, times(1)).execute();
+        assertEquals(1, coins.size());
+        assertEquals("bitcoin", coins.get(0).getId());
     }
 
     @Test
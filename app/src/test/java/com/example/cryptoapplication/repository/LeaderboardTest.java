@@ -0,0 +1,92 @@
+package com.example.cryptoapplication.repository;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardTest {
+
+    private Leaderboard gainers;
+
+    @Before
+    public void setUp() {
+        gainers = new Leaderboard(MarketSnapshot::changePercentage24h, true, value -> value > 0);
+    }
+
+    private static CoinModel coin(String id, double change) {
+        return new CoinModel(id, id, id, 1.0, "", change);
+    }
+
+    private static List<String> ids(List<CoinModel> coins) {
+        List<String> ids = new ArrayList<>();
+        for (CoinModel coin : coins) {
+            ids.add(coin.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testBuildsRankedBoard() {
+        MarketSnapshot market = MarketSnapshot.of(Arrays.asList(
+                coin("bitcoin", 2.0), coin("ethereum", 5.0), coin("tether", 0.0), coin("solana", -3.0), coin("cardano", 5.0)));
+
+        gainers.apply(MarketSnapshot.EMPTY, market);
+
+        // Equal gains keep market-cap rank; flat and falling coins are left off
+        assertEquals(Arrays.asList("ethereum", "cardano", "bitcoin"), ids(gainers.top(10)));
+        assertEquals(Arrays.asList("ethereum", "cardano"), ids(gainers.top(2)));
+    }
+
+    @Test
+    public void testPriceUpdateMovesOnlyChangedCoins() {
+        MarketSnapshot market = MarketSnapshot.of(Arrays.asList(
+                coin("bitcoin", 2.0), coin("ethereum", 5.0), coin("solana", 1.0)));
+        gainers.apply(MarketSnapshot.EMPTY, market);
+
+        // A top-30 style refresh carrying one coin
+        CoinModel solana = coin("solana", 9.0);
+        MarketSnapshot refreshed = market.mergedWith(Collections.singletonList(solana));
+        gainers.apply(market, refreshed);
+
+        assertEquals(Arrays.asList("solana", "ethereum", "bitcoin"), ids(gainers.top(10)));
+        assertSame(solana, gainers.top(1).get(0));
+
+        // Bitcoin turns negative and drops off the board
+        MarketSnapshot fallen = refreshed.mergedWith(Collections.singletonList(coin("bitcoin", -1.0)));
+        gainers.apply(refreshed, fallen);
+        assertEquals(Arrays.asList("solana", "ethereum"), ids(gainers.top(10)));
+    }
+
+    @Test
+    public void testUnchangedValuesPickUpNewRows() {
+        MarketSnapshot market = MarketSnapshot.of(Arrays.asList(coin("bitcoin", 2.0)));
+        gainers.apply(MarketSnapshot.EMPTY, market);
+
+        CoinModel fresh = coin("bitcoin", 2.0);
+        MarketSnapshot refreshed = MarketSnapshot.of(Collections.singletonList(fresh));
+        gainers.apply(market, refreshed);
+
+        assertEquals(1, gainers.size());
+        assertSame(fresh, gainers.top(1).get(0));
+    }
+
+    @Test
+    public void testCoinsMissingFromNextSnapshotAreRemoved() {
+        MarketSnapshot market = MarketSnapshot.of(Arrays.asList(coin("bitcoin", 2.0), coin("ethereum", 5.0)));
+        gainers.apply(MarketSnapshot.EMPTY, market);
+
+        MarketSnapshot replaced = MarketSnapshot.of(Arrays.asList(coin("bitcoin", 3.0), coin("solana", 1.0)));
+        gainers.apply(market, replaced);
+
+        assertEquals(Arrays.asList("bitcoin", "solana"), ids(gainers.top(10)));
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.cryptoapplication.repository;
+
+import com.example.cryptoapplication.database.dao.CoinDao;
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.network.CoinGeckoApi;
+import com.example.cryptoapplication.network.RetrofitClient;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PagedMarketLoaderTest {
+
+    @Mock
+    private CoinGeckoApi mockCoinGeckoApi;
+
+    @Mock
+    private CoinDao mockCoinDao;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static CoinModel coin(String id) {
+        return new CoinModel(id, id, id, 1.0, "", 0.0);
+    }
+
+    private static final Gson GSON = RetrofitClient.createGson();
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    @SuppressWarnings("unchecked")
+    private void givenBody(int page, int perPage, String json) throws IOException {
+        Call<ResponseBody> call = mock(Call.class);
+        when(call.execute()).thenReturn(Response.success(ResponseBody.create(json, JSON)));
+        when(mockCoinGeckoApi.streamCoinMarkets("usd", "market_cap_desc", perPage, page, false)).thenReturn(call);
+    }
+
+    private void givenPage(int page, int perPage, List<CoinModel> coins) throws IOException {
+        givenBody(page, perPage, GSON.toJson(coins));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenFailingPage(int page, int perPage) throws IOException {
+        Call<ResponseBody> call = mock(Call.class);
+        when(call.execute()).thenThrow(new IOException("timeout"));
+        when(mockCoinGeckoApi.streamCoinMarkets("usd", "market_cap_desc", perPage, page, false)).thenReturn(call);
+    }
+
+    private void givenMalformedPage(int page, int perPage) throws IOException {
+        givenBody(page, perPage, "{\"error\":\"rate limited\"}");
+    }
+
+    private static List<String> ids(List<CoinModel> coins) {
+        List<String> ids = new ArrayList<>();
+        for (CoinModel coin : coins) {
+            ids.add(coin.getId());
+        }
+        return ids;
+    }
+
+    private static class Recorder implements PagedMarketLoader.PageListener {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicReference<List<CoinModel>> result = new AtomicReference<>();
+        final AtomicInteger failed = new AtomicInteger(-1);
+        final List<Integer> progress = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onPageLoaded(int pagesLoaded, int pageCount, List<CoinModel> coinsSoFar) {
+            progress.add(pagesLoaded);
+        }
+
+        @Override
+        public void onLoadFinished(List<CoinModel> coins, int failedPages) {
+            result.set(coins);
+            failed.set(failedPages);
+            finished.countDown();
+        }
+    }
+
+    @Test
+    public void testPagesAreMergedInRankOrderAndPersisted() throws Exception {
+        List<CoinModel> first = new ArrayList<>();
+        List<CoinModel> second = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            first.add(coin("a" + i));
+            second.add(coin("b" + i));
+        }
+        // Ranks shifted between requests, so page 3 repeats the last coin of page 2
+        List<CoinModel> third = Arrays.asList(coin("b249"), coin("c0"), coin("c1"));
+        givenPage(1, 250, first);
+        givenPage(2, 250, second);
+        givenPage(3, 250, third);
+
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<List<CoinModel>> result = new AtomicReference<>();
+        AtomicInteger failed = new AtomicInteger(-1);
+        List<Integer> progress = new CopyOnWriteArrayList<>();
+
+        new PagedMarketLoader(mockCoinGeckoApi, mockCoinGeckoApi, mockCoinDao).load(502,
+                new PagedMarketLoader.PageListener() {
+                    @Override
+                    public void onPageLoaded(int pagesLoaded, int pageCount, List<CoinModel> coinsSoFar) {
+                        progress.add(coinsSoFar.size());
+                    }
+
+                    @Override
+                    public void onLoadFinished(List<CoinModel> coins, int failedPages) {
+                        result.set(coins);
+                        failed.set(failedPages);
+                        finished.countDown();
+                    }
+                });
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(0, failed.get());
+        // Progress only ever grows, ending with every page
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(502, (int) progress.get(progress.size() - 1));
+        assertEquals(502, result.get().size());
+        assertEquals("a0", result.get().get(0).getId());
+        assertEquals("b0", result.get().get(250).getId());
+        assertEquals("c1", result.get().get(501).getId());
+        // Each page is persisted once, with every row the body carried
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CoinModel>> persisted = ArgumentCaptor.forClass(List.class);
+        verify(mockCoinDao, times(3)).upsertAll(persisted.capture());
+        List<List<String>> pages = new ArrayList<>();
+        for (List<CoinModel> page : persisted.getAllValues()) {
+            pages.add(ids(page));
+        }
+        assertTrue(pages.contains(ids(first)));
+        assertTrue(pages.contains(ids(second)));
+        assertTrue(pages.contains(ids(third)));
+    }
+
+    @Test
+    public void testUnpersistedPagesSkipCacheOnlyFields() throws Exception {
+        CoinModel bitcoin = coin("bitcoin");
+        bitcoin.setTotalVolume(3.0e10);
+        bitcoin.setMaxSupply(2.1e7);
+        givenPage(1, 1, Arrays.asList(bitcoin));
+        Recorder recorder = new Recorder();
+
+        new PagedMarketLoader(mockCoinGeckoApi, mockCoinGeckoApi, null).load(1, 1, recorder);
+
+        assertTrue(recorder.finished.await(5, TimeUnit.SECONDS));
+        CoinModel parsed = recorder.result.get().get(0);
+        // Volume feeds the market snapshot; max supply is only ever read back from coin_cache
+        assertEquals(3.0e10, parsed.getTotalVolume(), 0.0);
+        assertEquals(0.0, parsed.getMaxSupply(), 0.0);
+    }
+
+    @Test
+    public void testFailedPageIsReportedAndOthersKept() throws Exception {
+        givenPage(1, 2, Arrays.asList(coin("bitcoin"), coin("ethereum")));
+        givenFailingPage(2, 2);
+        givenPage(3, 2, Arrays.asList(coin("solana"), coin("cardano")));
+        Recorder recorder = new Recorder();
+
+        new PagedMarketLoader(mockCoinGeckoApi, mockCoinGeckoApi, null).load(6, 2, recorder);
+
+        assertTrue(recorder.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1, recorder.failed.get());
+        // Page 2 never arrives, so page 3 is never shown ahead of it
+        assertEquals(Arrays.asList(1), recorder.progress);
+        assertEquals(4, recorder.result.get().size());
+        assertEquals("solana", recorder.result.get().get(2).getId());
+    }
+
+    @Test
+    public void testMalformedPageCountsAsFailed() throws Exception {
+        givenMalformedPage(1, 2);
+        givenPage(2, 2, Arrays.asList(coin("solana"), coin("cardano")));
+        Recorder recorder = new Recorder();
+
+        new PagedMarketLoader(mockCoinGeckoApi, mockCoinGeckoApi, null).load(4, 2, recorder);
+
+        assertTrue(recorder.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1, recorder.failed.get());
+        assertTrue(recorder.progress.isEmpty());
+        assertEquals(2, recorder.result.get().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelAbortsRequestInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        Call<ResponseBody> call = mock(Call.class);
+        when(call.execute()).thenAnswer(invocation -> {
+            started.countDown();
+            aborted.await(5, TimeUnit.SECONDS);
+            throw new IOException("Canceled");
+        });
+        doAnswer(invocation -> {
+            aborted.countDown();
+            return null;
+        }).when(call).cancel();
+        when(mockCoinGeckoApi.streamCoinMarkets("usd", "market_cap_desc", 2, 1, false)).thenReturn(call);
+        Recorder recorder = new Recorder();
+
+        PagedMarketLoader.Load load = new PagedMarketLoader(mockCoinGeckoApi, mockCoinGeckoApi, null).load(2, 2, recorder);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        load.cancel();
+
+        verify(call).cancel();
+        // Cancelled, not failed: nothing is reported
+        assertFalse(recorder.finished.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(recorder.progress.isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.cryptoapplication.service;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.MarketSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CoinSearchIndexTest {
+
+    private MarketSnapshot market;
+    private CoinSearchIndex index;
+
+    private static CoinModel coin(String id, String symbol, String name, double marketCap) {
+        CoinModel coin = new CoinModel(id, symbol, name, 1.0, "", 0.0);
+        coin.setMarketCap(marketCap);
+        return coin;
+    }
+
+    @Before
+    public void setUp() {
+        market = MarketSnapshot.of(Arrays.asList(
+                coin("bitcoin", "btc", "Bitcoin", 1000.0),
+                coin("ethereum", "eth", "Ethereum", 500.0),
+                coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 50.0),
+                coin("shiba-inu", "shib", "Shiba Inu", 40.0),
+                coin("bitcoin-cash", "bch", "Bitcoin Cash", 60.0),
+                coin("ethereum-classic", "etc", "Ethereum Classic", 30.0),
+                coin("eth-bridge", "ETH", "Bridged Ether", 1.0)));
+        index = CoinSearchIndex.build(market);
+    }
+
+    private List<String> search(String query) {
+        List<String> ids = new ArrayList<>();
+        for (int i : index.search(query, 100)) {
+            ids.add(market.id(i));
+        }
+        return ids;
+    }
+
+    @Test
+    public void testPrefixMatchesRankedByMarketCap() {
+        assertEquals(Arrays.asList("bitcoin", "bitcoin-cash", "wrapped-bitcoin"), search("bitc"));
+        // Word prefixes inside a name count as prefix matches, ahead of substrings such as bitco-in
+        assertEquals(Arrays.asList("shiba-inu", "bitcoin", "bitcoin-cash", "wrapped-bitcoin"), search("In"));
+    }
+
+    @Test
+    public void testExactSymbolComesFirst() {
+        // Both coins with symbol "eth" lead, then name and symbol prefixes
+        assertEquals(Arrays.asList("ethereum", "eth-bridge", "ethereum-classic"), search("eth"));
+    }
+
+    @Test
+    public void testSubstringMatchesAfterPrefixes() {
+        assertEquals(Arrays.asList("bitcoin", "bitcoin-cash", "wrapped-bitcoin"), search("coin"));
+        assertEquals(Arrays.asList("wrapped-bitcoin"), search("pped"));
+        assertEquals(Arrays.asList("ethereum", "ethereum-classic"), search("ereu"));
+        assertTrue(search("xyz").isEmpty());
+    }
+
+    @Test
+    public void testShortQueriesAndLimits() {
+        assertEquals(Arrays.asList("bitcoin-cash"), search("ch"));
+        assertEquals(market.size(), search("  ").size());
+        assertEquals(1, index.search("bitc", 1).length);
+        assertEquals(0, CoinSearchIndex.EMPTY.search("btc", 10).length);
+    }
+
+    @Test
+    public void testLargeMarketMatchesLinearScan() {
+        List<CoinModel> coins = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            coins.add(coin("coin-" + i, "c" + i, "Coin Number " + i, 2500 - i));
+        }
+        MarketSnapshot large = MarketSnapshot.of(coins);
+        CoinSearchIndex largeIndex = CoinSearchIndex.build(large);
+
+        int expected = 0;
+        for (int i = 0; i < large.size(); i++) {
+            if (large.lowerName(i).contains("r 12") || large.lowerSymbol(i).contains("r 12")) {
+                expected++;
+            }
+        }
+        assertEquals(expected, largeIndex.search("r 12", Integer.MAX_VALUE).length);
+        assertEquals("coin-12", large.id(largeIndex.search("c12", 10)[0]));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.cryptoapplication.service;
+
+import com.example.cryptoapplication.models.CoinModel;
+import com.example.cryptoapplication.models.ConsolidatedAsset;
+import com.example.cryptoapplication.utils.FixedPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PortfolioValuationServiceTest {
+
+    private PortfolioValuationService valuationService;
+
+    @Before
+    public void setUp() {
+        valuationService = new PortfolioValuationService();
+    }
+
+    private static ConsolidatedAsset holding(String coinId, double quantity, double costBasis) {
+        ConsolidatedAsset asset = new ConsolidatedAsset();
+        asset.setCoinId(coinId);
+        asset.setTotalQuantity(quantity);
+        asset.setCostBasis(costBasis);
+        return asset;
+    }
+
+    @Test
+    public void testValuesHoldingsAtSnapshotPrices() {
+        PortfolioValuationService.Valuation valuation = valuationService.value(
+                Arrays.asList(holding("bitcoin", 0.5, 20000.0), holding("ethereum", 2.0, 5000.0)),
+                Arrays.asList(
+                        new CoinModel("ethereum", "eth", "Ethereum", 3000.0, "", 0.0),
+                        new CoinModel("cardano", "ada", "Cardano", 1.5, "", 0.0),
+                        new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "", 0.0)));
+
+        assertEquals(31000.0, valuation.getTotalValue(), 0.0);
+        assertEquals(FixedPoint.fromFiat(25000.0), (long) valuation.getCoinValueUnits().get("bitcoin"));
+        assertEquals(FixedPoint.fromFiat(6000.0), (long) valuation.getCoinValueUnits().get("ethereum"));
+        assertFalse(valuation.getCoinValueUnits().containsKey("cardano"));
+    }
+
+    @Test
+    public void testMissingPriceFallsBackToAverageCost() {
+        PortfolioValuationService.Valuation valuation = valuationService.value(
+                Collections.singletonList(holding("solana", 4.0, 400.0)),
+                Collections.emptyList());
+
+        assertEquals(400.0, valuation.getTotalValue(), 0.0);
+    }
+
+    @Test
+    public void testChange24hUsesAbsoluteOrDerivedMove() {
+        CoinModel bitcoin = new CoinModel("bitcoin", "btc", "Bitcoin", 50000.0, "", 2.0);
+        bitcoin.setPriceChange24h(1000.0);
+        // No absolute change sent: 3000 is +50% on 2000, so a 1000 move
+        CoinModel ethereum = new CoinModel("ethereum", "eth", "Ethereum", 3000.0, "", 50.0);
+
+        PortfolioValuationService.Valuation valuation = valuationService.value(
+                Arrays.asList(holding("bitcoin", 0.5, 0.0), holding("ethereum", 2.0, 0.0), holding("solana", 1.0, 10.0)),
+                Arrays.asList(bitcoin, ethereum));
+
+        assertEquals(2500.0, valuation.getChange24h(), 0.0);
+        assertEquals(31010.0, valuation.getTotalValue(), 0.0);
+        assertEquals(2500.0 * 100.0 / (31010.0 - 2500.0), valuation.getChangePercentage24h(), 1e-9);
+    }
+
+    @Test
+    public void testEmptyInputs() {
+        assertEquals(0L, valuationService.value(null, null).getTotalValueUnits());
+        assertTrue(valuationService.value(Collections.emptyList(), null).getCoinValueUnits().isEmpty());
+    }
+}
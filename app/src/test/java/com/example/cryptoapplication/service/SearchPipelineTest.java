@@ -0,0 +1,102 @@
+package com.example.cryptoapplication.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchPipelineTest {
+
+    private final List<String> searched = Collections.synchronizedList(new ArrayList<>());
+    private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+    private SearchPipeline<String> pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private SearchPipeline<String> echoPipeline(long debounceMs) {
+        return new SearchPipeline<>((query, cancellation) -> {
+            searched.add(query);
+            return query.toUpperCase();
+        }, (query, result) -> delivered.add(result), Runnable::run, debounceMs);
+    }
+
+    @Test
+    public void testFastTypingSearchesOnlyLastQuery() throws Exception {
+        pipeline = echoPipeline(100);
+
+        pipeline.submit("b");
+        pipeline.submit("bi");
+        pipeline.submit("bit");
+
+        assertEquals("BIT", delivered.poll(2, TimeUnit.SECONDS));
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList("bit"), searched);
+    }
+
+    @Test
+    public void testNewerQueryCancelsRunningSearch() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        pipeline = new SearchPipeline<>((query, cancellation) -> {
+            if (query.equals("slow")) {
+                slowStarted.countDown();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+                while (!cancellation.isCancelled() && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+            }
+            return query;
+        }, (query, result) -> delivered.add(result), Runnable::run, 0);
+
+        pipeline.submitNow("slow");
+        assertTrue(slowStarted.await(2, TimeUnit.SECONDS));
+        pipeline.submitNow("fast");
+
+        assertEquals("fast", delivered.poll(2, TimeUnit.SECONDS));
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testStaleResultIsDroppedOnDelivery() throws Exception {
+        // Results wait here like posts queued behind a busy main thread
+        BlockingQueue<Runnable> mainQueue = new LinkedBlockingQueue<>();
+        pipeline = new SearchPipeline<>((query, cancellation) -> query,
+                (query, result) -> delivered.add(result), mainQueue::add, 0);
+
+        pipeline.submitNow("old");
+        Runnable oldResult = mainQueue.poll(2, TimeUnit.SECONDS);
+        pipeline.submitNow("new");
+        Runnable newResult = mainQueue.poll(2, TimeUnit.SECONDS);
+
+        oldResult.run();
+        newResult.run();
+        assertEquals(Arrays.asList("new"), new ArrayList<>(delivered));
+    }
+
+    @Test
+    public void testCancelAndShutdownDeliverNothing() throws Exception {
+        pipeline = echoPipeline(50);
+
+        pipeline.submit("eth");
+        pipeline.cancel();
+        assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+
+        pipeline.shutdown();
+        pipeline.submitNow("btc");
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(searched.isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.cryptoapplication.ui.home.adapter;
+
+import com.example.cryptoapplication.models.CoinModel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoinDiffCallbackTest {
+
+    private final CoinDiffCallback callback = new CoinDiffCallback();
+
+    private static CoinModel coin(String id, String name, double price, double change) {
+        return new CoinModel(id, id.substring(0, 3), name, price, "https://img/" + id + ".png", change);
+    }
+
+    @Test
+    public void testRowsAreKeyedByCoinId() {
+        assertTrue(callback.areItemsTheSame(coin("bitcoin", "Bitcoin", 1.0, 0.0), coin("bitcoin", "Bitcoin", 2.0, 1.0)));
+        assertFalse(callback.areItemsTheSame(coin("bitcoin", "Bitcoin", 1.0, 0.0), coin("ethereum", "Bitcoin", 1.0, 0.0)));
+    }
+
+    @Test
+    public void testUnchangedRowIsNotRebound() {
+        // A fresh object from the next refresh with the same displayed values
+        assertTrue(callback.areContentsTheSame(coin("bitcoin", "Bitcoin", 50000.0, 1.5), coin("bitcoin", "Bitcoin", 50000.0, 1.5)));
+    }
+
+    @Test
+    public void testPriceMoveIsPartialPayload() {
+        CoinModel before = coin("bitcoin", "Bitcoin", 50000.0, 1.5);
+        CoinModel after = coin("bitcoin", "Bitcoin", 50100.0, 1.7);
+
+        assertFalse(callback.areContentsTheSame(before, after));
+        assertSame(CoinDiffCallback.PAYLOAD_PRICE, callback.getChangePayload(before, after));
+    }
+
+    @Test
+    public void testRenameRebindsWholeRow() {
+        CoinModel before = coin("bitcoin", "Bitcoin", 50000.0, 1.5);
+        CoinModel after = coin("bitcoin", "Bitcoin (BTC)", 50000.0, 1.5);
+
+        assertFalse(callback.areContentsTheSame(before, after));
+        assertNull(callback.getChangePayload(before, after));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.cryptoapplication.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AppExecutorsTest {
+
+    @After
+    public void tearDown() {
+        AppExecutors.shutdown();
+    }
+
+    @Test
+    public void testSharedUntilShutdown() {
+        AppExecutors first = AppExecutors.get();
+        assertSame(first, AppExecutors.get());
+
+        AppExecutors.shutdown();
+        assertTrue(first.network().isShutdown());
+        assertNotSame(first, AppExecutors.get());
+    }
+
+    @Test
+    public void testSlowNetworkDoesNotBlockWrites() throws Exception {
+        AppExecutors executors = AppExecutors.get();
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            executors.network().execute(() -> awaitQuietly(release));
+        }
+
+        Future<String> write = executors.diskWrite().submit(() -> "saved");
+        assertEquals("saved", write.get(2, TimeUnit.SECONDS));
+        assertTrue(executors.network().getQueueDepth() > 0);
+        release.countDown();
+    }
+
+    @Test
+    public void testWriterRunsInSubmissionOrder() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            AppExecutors.get().diskWrite().execute(() -> {
+                order.add(n);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testSerialRunsOneAtATimeInOrder() throws Exception {
+        Executor serial = AppExecutors.serial(AppExecutors.get().cpu());
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        int[] running = new int[1];
+        boolean[] overlapped = new boolean[1];
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            serial.execute(() -> {
+                synchronized (running) {
+                    overlapped[0] |= ++running[0] > 1;
+                }
+                order.add(n);
+                synchronized (running) {
+                    running[0]--;
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertFalse(overlapped[0]);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testFullQueueRejectsAndCounts() {
+        AppExecutors.Pool writer = AppExecutors.get().diskWrite();
+        CountDownLatch release = new CountDownLatch(1);
+        int accepted = 0;
+        try {
+            while (accepted < 1000) {
+                writer.execute(() -> awaitQuietly(release));
+                accepted++;
+            }
+            fail("Queue should be bounded");
+        } catch (RejectedExecutionException expected) {
+            // One task running plus a full queue
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(accepted < 1000);
+        assertEquals(1, writer.getStats().rejected);
+    }
+
+    @Test
+    public void testStatsRecordLatency() throws Exception {
+        AppExecutors.Pool reader = AppExecutors.get().diskRead();
+        reader.submit(() -> {
+            Thread.sleep(20);
+            return null;
+        }).get(2, TimeUnit.SECONDS);
+
+        // The counters are updated just after the future completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (reader.getStats().completed == 0 && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        AppExecutors.Pool.Stats stats = reader.getStats();
+        assertEquals("disk-read", stats.name);
+        assertEquals(1, stats.completed);
+        assertTrue(stats.maxRunNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(stats.maxRunNanos, stats.meanRunNanos);
+        assertEquals(4, AppExecutors.get().getStats().size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.cryptoapplication.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedPointTest {
+
+    @Test
+    public void testRoundTripKeepsEightDecimals() {
+        long units = FixedPoint.fromQuantity(0.00000123);
+        assertEquals(123L, units);
+        assertEquals(0.00000123, FixedPoint.toQuantity(units), 0.0);
+
+        long price = FixedPoint.fromFiat(0.00001234);
+        assertEquals(1234L, price);
+        assertEquals(0.00001234, FixedPoint.toFiat(price), 0.0);
+    }
+
+    @Test
+    public void testValueIsExact() {
+        // 0.1 BTC at $50,000.00 is exactly $5,000.00
+        long value = FixedPoint.value(FixedPoint.fromQuantity(0.1), FixedPoint.fromFiat(50000.0));
+        assertEquals(FixedPoint.fromFiat(5000.0), value);
+
+        // Repeated small buys add up without drift
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            total += FixedPoint.value(FixedPoint.fromQuantity(0.1), FixedPoint.fromFiat(0.1));
+        }
+        assertEquals(FixedPoint.fromFiat(0.1), total);
+    }
+
+    @Test
+    public void testValueHandlesLargeOperands() {
+        // 100,000 coins at $100,000 overflows a naive long product
+        long value = FixedPoint.value(FixedPoint.fromQuantity(100_000), FixedPoint.fromFiat(100_000));
+        assertEquals(FixedPoint.fromFiat(10_000_000_000.0), value);
+    }
+
+    @Test
+    public void testValueRoundsHalfAwayFromZero() {
+        assertEquals(1L, FixedPoint.mulDiv(1, 50_000_000L, FixedPoint.QUANTITY_SCALE));
+        assertEquals(0L, FixedPoint.mulDiv(1, 49_999_999L, FixedPoint.QUANTITY_SCALE));
+        assertEquals(-1L, FixedPoint.mulDiv(-1, 50_000_000L, FixedPoint.QUANTITY_SCALE));
+    }
+
+    @Test
+    public void testProportionSplitsCostBasis() {
+        // Selling a third of a $100.00 position releases $33.33333333
+        assertEquals(3_333_333_333L, FixedPoint.proportion(FixedPoint.fromFiat(100.0), 1, 3));
+        assertEquals(6_666_666_667L, FixedPoint.proportion(FixedPoint.fromFiat(100.0), 2, 3));
+        // Operands whose product overflows a long still work
+        assertEquals(Long.MAX_VALUE / 2, FixedPoint.proportion(Long.MAX_VALUE - 1, 1_000_000_000L, 2_000_000_000L));
+        assertEquals(Long.MAX_VALUE / 3, FixedPoint.proportion(Long.MAX_VALUE, Long.MAX_VALUE / 3, Long.MAX_VALUE));
+        // Halves round away from zero on both sides
+        assertEquals(-3, FixedPoint.proportion(-5, 1, 2));
+        assertEquals(3, FixedPoint.proportion(5, 1, 2));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflowThrows() {
+        FixedPoint.value(Long.MAX_VALUE, FixedPoint.fromFiat(2.0));
+    }
+}
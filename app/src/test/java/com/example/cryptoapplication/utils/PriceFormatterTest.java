@@ -0,0 +1,62 @@
+package com.example.cryptoapplication.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PriceFormatterTest {
+
+    private final PriceFormatter formatter = new PriceFormatter();
+
+    private String price(double usd) {
+        return formatter.reset().price(usd).toString();
+    }
+
+    @Test
+    public void testPricePrecisionFollowsMagnitude() {
+        assertEquals("$0.00", price(0));
+        assertEquals("$1,234,567.89", price(1234567.891));
+        assertEquals("$65,000.00", price(65000));
+        assertEquals("$1.00", price(0.999999));
+        assertEquals("$0.5432", price(0.54321));
+        assertEquals("$0.0100", price(0.0099999));
+        assertEquals("$0.0123", price(0.0123449));
+        assertEquals("$0.001234", price(0.00123449));
+        assertEquals("$0.00001234", price(0.000012341));
+        assertEquals("$0.000000000001", price(1e-12));
+        assertEquals("-$3.50", price(-3.5));
+    }
+
+    @Test
+    public void testPercentAndSignedAmounts() {
+        assertEquals("+2.50%", formatter.reset().percent(2.5).toString());
+        assertEquals("-0.31%", formatter.reset().percent(-0.3149).toString());
+        // Rounds to zero, so no minus sign
+        assertEquals("+0.00%", formatter.reset().percent(-0.001).toString());
+        assertEquals("+$12.30 (+1.25%)",
+                formatter.reset().signedUsd(12.3).append(" (").percent(1.25).append(')').toString());
+        assertEquals("-$1,000.00", formatter.reset().signedUsd(-999.999).toString());
+        assertEquals("$0.00", formatter.reset().usd(-0.001).toString());
+    }
+
+    @Test
+    public void testQuantityTrimsTrailingZeros() {
+        assertEquals("1,250.5", formatter.reset().quantity(1250.5, 8).toString());
+        assertEquals("0.00012345", formatter.reset().quantity(0.000123449, 8).toString());
+        assertEquals("3", formatter.reset().quantity(3.0, 8).toString());
+        assertEquals("0.1235", formatter.reset().quantity(0.12345, 4).toString());
+    }
+
+    @Test
+    public void testBufferIsReused() {
+        char[] buffer = formatter.reset().price(1.0).chars();
+        assertSame(buffer, formatter.reset().price(42000.5).chars());
+        assertEquals("$42,000.50", new String(formatter.chars(), 0, formatter.length()));
+    }
+
+    @Test
+    public void testNonFiniteValues() {
+        assertEquals("--", price(Double.NaN));
+        assertEquals("--", formatter.reset().percent(Double.POSITIVE_INFINITY).toString());
+    }
+}
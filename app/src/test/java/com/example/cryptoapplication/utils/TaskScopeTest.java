@@ -0,0 +1,138 @@
+package com.example.cryptoapplication.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskScopeTest {
+
+    // Posts wait here like messages queued for the main thread
+    private final LinkedBlockingQueue<Runnable> mainQueue = new LinkedBlockingQueue<>();
+    private final List<String> shown = new ArrayList<>();
+    private TaskScope scope;
+
+    @Before
+    public void setUp() {
+        scope = new TaskScope(mainQueue::add);
+    }
+
+    private void runMainQueue() {
+        Runnable action;
+        while ((action = mainQueue.poll()) != null) {
+            action.run();
+        }
+    }
+
+    @Test
+    public void testResultIsPostedToMainThread() {
+        scope.launch(Runnable::run, task -> task.post(() -> shown.add("coins")));
+
+        assertTrue(shown.isEmpty());
+        runMainQueue();
+        assertEquals(1, shown.size());
+    }
+
+    @Test
+    public void testCancelledBeforeStartIsSkipped() {
+        List<Runnable> pool = new ArrayList<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        TaskScope.Task task = scope.launch(pool::add, t -> runs.incrementAndGet());
+        task.cancel();
+        pool.get(0).run();
+
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testPostAfterCancelIsDropped() {
+        TaskScope.Task task = scope.launch(Runnable::run, t -> t.post(() -> shown.add("late")));
+
+        task.cancel();
+        runMainQueue();
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void testCancelRunsHooksOnce() {
+        AtomicInteger aborted = new AtomicInteger();
+        Runnable forgotten = aborted::incrementAndGet;
+        List<Runnable> pool = new ArrayList<>();
+        TaskScope.Task task = scope.launch(pool::add, t -> {});
+        task.onCancel(aborted::incrementAndGet);
+        task.onCancel(forgotten);
+        task.removeOnCancel(forgotten);
+
+        task.cancel();
+        task.cancel();
+        assertTrue(task.isCancelled());
+        assertEquals(1, aborted.get());
+
+        // Registered too late, so it runs straight away
+        task.onCancel(aborted::incrementAndGet);
+        assertEquals(2, aborted.get());
+    }
+
+    @Test
+    public void testCloseCancelsRunningWork() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        Executor thread = command -> new Thread(command).start();
+        TaskScope.Task task = scope.launch(thread, t -> {
+            t.onCancel(aborted::countDown);
+            started.countDown();
+            try {
+                aborted.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            t.post(() -> shown.add("after destroy"));
+            finished.countDown();
+        });
+
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        scope.close();
+
+        assertTrue(aborted.await(2, TimeUnit.SECONDS));
+        assertTrue(task.isCancelled());
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        runMainQueue();
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void testClosedScopeRunsNothing() {
+        AtomicInteger runs = new AtomicInteger();
+        scope.post(() -> shown.add("queued before close"));
+        scope.close();
+
+        TaskScope.Task task = scope.launch(Runnable::run, t -> runs.incrementAndGet());
+        scope.post(() -> shown.add("posted after close"));
+        runMainQueue();
+
+        assertTrue(task.isCancelled());
+        assertEquals(0, runs.get());
+        assertTrue(shown.isEmpty());
+    }
+
+    @Test
+    public void testFullPoolCancelsTask() {
+        TaskScope.Task task = scope.launch(command -> {
+            throw new RejectedExecutionException("full");
+        }, t -> shown.add("ran"));
+
+        assertTrue(task.isCancelled());
+        assertTrue(shown.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.cryptoapplication.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TopKTest {
+
+    @Test
+    public void testLargestAndSmallestInOrder() {
+        double[] changes = {2.0, -5.0, 7.5, 0.0, -1.0, 3.0};
+
+        assertArrayEquals(new int[]{2, 5, 0}, TopK.largest(changes.length, 3, i -> changes[i], null));
+        assertArrayEquals(new int[]{1, 4}, TopK.smallest(changes.length, 2, i -> changes[i], null));
+    }
+
+    @Test
+    public void testFilterAndShortResult() {
+        double[] changes = {2.0, -5.0, 7.5, 0.0, -1.0, 3.0};
+
+        // Only two losers exist, so asking for ten returns two
+        assertArrayEquals(new int[]{1, 4}, TopK.smallest(changes.length, 10, i -> changes[i], i -> changes[i] < 0));
+        assertEquals(0, TopK.largest(changes.length, 0, i -> changes[i], null).length);
+        assertEquals(0, TopK.largest(0, 10, i -> 0.0, null).length);
+    }
+
+    @Test
+    public void testTiesKeepRankOrder() {
+        double[] volumes = {5.0, 9.0, 5.0, 9.0, 5.0};
+
+        assertArrayEquals(new int[]{1, 3, 0, 2}, TopK.largest(volumes.length, 4, i -> volumes[i], null));
+    }
+
+    @Test
+    public void testMatchesFullSort() {
+        Random random = new Random(42);
+        double[] values = new double[2500];
+        for (int i = 0; i < values.length; i++) {
+            // Coarse values so ties are common
+            values[i] = random.nextInt(200) - 100;
+        }
+
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > 0) {
+                sorted.add(i);
+            }
+        }
+        sorted.sort((a, b) -> {
+            int cmp = Double.compare(values[b], values[a]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        int[] top = TopK.largest(values.length, 25, i -> values[i], i -> values[i] > 0);
+        assertEquals(25, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals((int) sorted.get(i), top[i]);
+        }
+    }
+}